@@ -0,0 +1,357 @@
+package controllers;
+
+import db.TransactionExecutor;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import models.Booking;
+import models.BookingOutcome;
+
+/**
+ * Group commit for hot schedules. Bookings are queued per schedule and drained in batches of up to
+ * batchSize (or after lingerMs), each batch applied in one transaction: one row lock on the schedule,
+ * one batched INSERT and one "available_seats - k" UPDATE. Only single-seat CONFIRMED bookings from
+ * BookingController.book()/bookAsync() come through here; seat holds (what the customer screen books) and
+ * multi-seat bookings don't.
+ *
+ * After shutdown() starts, submit() books one-by-one through the fallback instead of queueing, and
+ * everything queued before that is still applied before shutdown() returns.
+ */
+public class BookingBatcher {
+
+    private static class Pending {
+        final Booking booking;
+        final CompletableFuture<BookingOutcome> result = new CompletableFuture<>();
+
+        Pending(Booking booking) {
+            this.booking = booking;
+        }
+    }
+
+    private static class ScheduleQueue {
+        final Long scheduleId;
+        final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean timerArmed = new AtomicBoolean();
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        ScheduleQueue(Long scheduleId) {
+            this.scheduleId = scheduleId;
+        }
+    }
+
+    private final int batchSize;
+    private final long lingerMs;
+    private final Function<Booking, BookingOutcome> fallback;
+    private final Map<Long, ScheduleQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService workers;
+    // submit() holds the read lock while it queues; shutdown() takes the write lock to stop new requests
+    private final ReadWriteLock accepting = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    // fallback is used to book one-by-one when a whole batch fails (e.g. a concurrent single booking won a seat)
+    public BookingBatcher(int batchSize, long lingerMs, int workerThreads, Function<Booking, BookingOutcome> fallback) {
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.fallback = fallback;
+        this.workers = Executors.newScheduledThreadPool(Math.max(1, workerThreads), r -> {
+            Thread t = new Thread(r, "booking-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public CompletableFuture<BookingOutcome> submit(Booking booking) {
+        Pending pending = new Pending(booking);
+        accepting.readLock().lock();
+        try {
+            if (closed) {
+                return CompletableFuture.completedFuture(fallback.apply(booking));
+            }
+            // Enqueued under the map's lock for this schedule, so drain() can't drop the queue in between
+            int[] queued = new int[1];
+            ScheduleQueue q = queues.compute(booking.getSchedule().getId(), (id, current) -> {
+                ScheduleQueue target = current != null ? current : new ScheduleQueue(id);
+                target.queue.add(pending);
+                queued[0] = target.size.incrementAndGet();
+                return target;
+            });
+
+            if (queued[0] >= batchSize) {
+                workers.execute(() -> drain(q));
+            } else if (q.timerArmed.compareAndSet(false, true)) {
+                workers.schedule(() -> {
+                    q.timerArmed.set(false);
+                    drain(q);
+                }, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            accepting.readLock().unlock();
+        }
+        return pending.result;
+    }
+
+    /**
+     * Stops taking requests, lets the workers finish what is queued (pending linger timers still fire),
+     * then books anything left one-by-one on the calling thread so every submitted future completes.
+     */
+    public void shutdown() {
+        accepting.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            accepting.writeLock().unlock();
+        }
+        workers.shutdown();
+        try {
+            workers.awaitTermination(Long.getLong("booking.batchShutdownMs", 30_000L), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ScheduleQueue q : queues.values()) {
+            Pending p;
+            while ((p = q.queue.poll()) != null) {
+                q.size.decrementAndGet();
+                p.result.complete(fallback.apply(p.booking));
+            }
+        }
+        queues.clear();
+    }
+
+    public long getBatchCount() { return batches.get(); }
+    public long getRequestCount() { return requests.get(); }
+    public long getFallbackCount() { return fallbacks.get(); }
+    public int getLargestBatch() { return largestBatch.get(); }
+
+    public double getAverageBatchSize() {
+        long b = batches.get();
+        return b == 0 ? 0 : (double) requests.get() / b;
+    }
+
+    // Only one drain per schedule at a time; keeps going until the queue is empty
+    private void drain(ScheduleQueue q) {
+        if (!q.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            while (true) {
+                batch.clear();
+                Pending p;
+                while (batch.size() < batchSize && (p = q.queue.poll()) != null) {
+                    q.size.decrementAndGet();
+                    batch.add(p);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                process(q.scheduleId, batch);
+            }
+        } finally {
+            q.draining.set(false);
+        }
+        // Idle schedules don't keep a queue; the next booking for one creates a fresh queue
+        queues.computeIfPresent(q.scheduleId, (id, current) -> current == q && q.queue.isEmpty() ? null : current);
+        // Something may have been queued between the last poll and releasing the drain flag
+        if (!q.queue.isEmpty()) {
+            try {
+                workers.execute(() -> drain(q));
+            } catch (RejectedExecutionException e) {
+                drain(q); // shutting down: no new tasks, so finish it here
+            }
+        }
+    }
+
+    private void process(Long scheduleId, List<Pending> batch) {
+        batches.incrementAndGet();
+        requests.addAndGet(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        BookingOutcome[] outcomes;
+        int[] inserted = new int[1];
+        try {
+            outcomes = applyBatch(scheduleId, batch, inserted);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            outcomes = null;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            outcomes = null;
+        }
+
+        if (outcomes == null) {
+            fallbacks.incrementAndGet();
+            for (Pending p : batch) {
+                p.result.complete(fallback.apply(p.booking));
+            }
+            return;
+        }
+        // Replays of earlier requests are BOOKED too but took no seat
+        if (inserted[0] > 0) {
+            ScheduleController.getInstance().seatsChanged(scheduleId, -inserted[0]);
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(outcomes[i]);
+        }
+    }
+
+    // Returns one outcome per request (in order) and sets inserted[0] to the number of new bookings, or
+    // throws so the caller can fall back
+    private BookingOutcome[] applyBatch(Long scheduleId, List<Pending> batch, int[] inserted) throws SQLException {
+        String lockSql = "SELECT available_seats FROM schedules WHERE id = ? FOR UPDATE";
+        String takenSql = "SELECT seat_number FROM bookings WHERE schedule_id = ? AND status IN ('CONFIRMED', 'PENDING') " +
+                "AND seat_number = ANY(?)";
+        String updateSql = "UPDATE schedules SET available_seats = available_seats - ? WHERE id = ?";
+
+        return TransactionExecutor.getInstance().inTransaction(conn -> {
+            BookingOutcome[] outcomes = new BookingOutcome[batch.size()];
+            inserted[0] = 0; // may be a re-run after a serialization failure
+
+            int available;
+            try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                stmt.setLong(1, scheduleId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    available = rs.next() ? rs.getInt("available_seats") : 0;
+                }
+            }
+
+            Map<String, Long> prior = findPriorBookings(conn, batch);
+
+            String[] requestedSeats = new String[batch.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                requestedSeats[i] = batch.get(i).booking.getSeatNumber();
+            }
+            Set<String> taken = new HashSet<>();
+            try (PreparedStatement stmt = conn.prepareStatement(takenSql)) {
+                Array seatArray = conn.createArrayOf("varchar", requestedSeats);
+                stmt.setLong(1, scheduleId);
+                stmt.setArray(2, seatArray);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        taken.add(rs.getString("seat_number"));
+                    }
+                }
+            }
+
+            // A retry whose key already produced a booking gets that booking back, as in BOOK_SQL; a repeat of
+            // a key earlier in this batch gets whatever the first one got. Everything else is first come first
+            // served: taken seats lose, then seats run out.
+            List<Integer> accepted = new ArrayList<>();
+            Map<String, Integer> firstWithKey = new HashMap<>();
+            int[] repeatOf = new int[batch.size()];
+            Arrays.fill(repeatOf, -1);
+            for (int i = 0; i < batch.size(); i++) {
+                Booking booking = batch.get(i).booking;
+                String key = keyOf(booking);
+                if (key != null && prior.containsKey(key)) {
+                    booking.setId(prior.get(key));
+                    outcomes[i] = BookingOutcome.BOOKED;
+                    continue;
+                }
+                if (key != null && firstWithKey.containsKey(key)) {
+                    repeatOf[i] = firstWithKey.get(key);
+                    continue;
+                }
+                if (key != null) {
+                    firstWithKey.put(key, i);
+                }
+                String seat = requestedSeats[i];
+                if (!taken.add(seat)) {
+                    outcomes[i] = BookingOutcome.SEAT_TAKEN;
+                } else if (accepted.size() >= available) {
+                    outcomes[i] = BookingOutcome.SOLD_OUT;
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            if (!accepted.isEmpty()) {
+                List<Booking> toInsert = new ArrayList<>(accepted.size());
+                for (int i : accepted) {
+                    toInsert.add(batch.get(i).booking);
+                }
+                BookingController.insertBookings(conn, scheduleId, toInsert, null);
+
+                try (PreparedStatement stmt = conn.prepareStatement(updateSql)) {
+                    stmt.setInt(1, accepted.size());
+                    stmt.setLong(2, scheduleId);
+                    stmt.executeUpdate();
+                }
+                inserted[0] = accepted.size();
+            }
+
+            for (int i : accepted) {
+                outcomes[i] = BookingOutcome.BOOKED;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (repeatOf[i] >= 0) {
+                    outcomes[i] = outcomes[repeatOf[i]];
+                    batch.get(i).booking.setId(batch.get(repeatOf[i]).booking.getId());
+                }
+            }
+            return outcomes;
+        });
+    }
+
+    // Existing booking id per customer/key pair in the batch, in one query; empty if no request has a key
+    private static Map<String, Long> findPriorBookings(Connection conn, List<Pending> batch) throws SQLException {
+        Map<String, Long> prior = new HashMap<>();
+        List<Long> userIds = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Pending p : batch) {
+            if (p.booking.getIdempotencyKey() != null) {
+                userIds.add(p.booking.getCustomer().getId());
+                keys.add(p.booking.getIdempotencyKey());
+            }
+        }
+        if (keys.isEmpty()) {
+            return prior;
+        }
+        String sql = "SELECT user_id, idempotency_key, MIN(id) FROM bookings " +
+                "WHERE (user_id, idempotency_key) IN (SELECT * FROM unnest(?::bigint[], ?::varchar[])) " +
+                "GROUP BY user_id, idempotency_key";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("bigint", userIds.toArray()));
+            stmt.setArray(2, conn.createArrayOf("varchar", keys.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    prior.put(rs.getLong(1) + ":" + rs.getString(2), rs.getLong(3));
+                }
+            }
+        }
+        return prior;
+    }
+
+    private static String keyOf(Booking booking) {
+        String key = booking.getIdempotencyKey();
+        return key == null ? null : booking.getCustomer().getId() + ":" + key;
+    }
+}
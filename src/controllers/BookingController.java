@@ -1,17 +1,89 @@
 package controllers;
 
 import db.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import models.*;
 
 public class BookingController {
 
     private static BookingController instance; // Singleton Pattern
 
+    // Seat check, seat decrement, insert and rollup run as one statement (one round trip), so the
+    // schedules row lock is only held for the duration of that statement. A retry carrying an
+    // idempotency key that already produced a booking for the same customer gets that booking back instead.
+    private static final String BOOK_SQL =
+            "WITH prior AS (" +
+            "    SELECT id FROM bookings WHERE user_id = ? AND idempotency_key = ? ORDER BY id LIMIT 1" +
+            "), taken AS (" +
+            "    SELECT 1 FROM bookings WHERE schedule_id = ? AND seat_number = ? AND status IN ('CONFIRMED', 'PENDING') LIMIT 1" +
+            "), dec AS (" +
+            "    UPDATE schedules SET available_seats = available_seats - 1 " +
+            "    WHERE id = ? AND available_seats > 0 AND NOT EXISTS (SELECT 1 FROM taken) " +
+            "    AND NOT EXISTS (SELECT 1 FROM prior) RETURNING id" +
+            "), ins AS (" +
+            "    INSERT INTO bookings (user_id, schedule_id, seat_number, status, total_amount, booking_date, idempotency_key) " +
+            "    SELECT ?, dec.id, ?, ?, ?, ?, ? FROM dec RETURNING id, schedule_id, status, total_amount" +
+            "), sold AS (" +
+            "    " + ReportController.bookingRollup("SELECT schedule_id, 1 AS sold, total_amount AS revenue, " +
+                    "0 AS cancelled FROM ins WHERE status = 'CONFIRMED'") +
+            ") " +
+            "SELECT COALESCE((SELECT id FROM ins), (SELECT id FROM prior)) AS booking_id, " +
+            "EXISTS (SELECT 1 FROM ins) AS inserted, EXISTS (SELECT 1 FROM taken) AS seat_taken";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // Booking -> Schedule -> Route/Bus plus the customer (no credentials); read by BookingRowMapper. Reads
+    // the history views, so archived trips are included
+    private static final String BOOKING_SELECT = "SELECT bk.id, bk.seat_number, bk.status, bk.total_amount, bk.booking_date, " +
+            "bk.schedule_id, s.departure_time, s.arrival_time, s.ticket_price, s.available_seats, " +
+            "s.bus_id, b.bus_number, b.total_seats, b.type, b.is_operational, " +
+            "s.route_id, r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
+            "bk.user_id, u.full_name, u.role " +
+            "FROM bookings_history bk " +
+            "JOIN schedules_history s ON bk.schedule_id = s.id " +
+            "JOIN buses b ON s.bus_id = b.id " +
+            "JOIN routes r ON s.route_id = r.id " +
+            "JOIN users u ON bk.user_id = u.id";
+
+    // Keyset order for paging; matches ix_bookings_user_recent / ix_bookings_recent and their archive twins
+    private static final String NEWEST_FIRST = " ORDER BY bk.booking_date DESC, bk.id DESC";
+
+    // Bookings and cancellations run through this so deadlocks and serialization failures are retried
+    private final TransactionExecutor transactions = TransactionExecutor.getInstance();
+
+    // Optional in-JVM admission: serialize bookings per schedule before a pooled connection is borrowed.
+    // Covers every booking path: book(), bookAsync(), createBookings() and the holds the UI books through
+    private final StripedLocks scheduleLocks = new StripedLocks(Integer.getInteger("booking.lockStripes", 64));
+    private volatile boolean admissionControl = Boolean.getBoolean("booking.admissionControl");
+
+    // Optional group commit for flash sales; null when bookings go through one-by-one. Only single-seat
+    // CONFIRMED bookings (book(), bookAsync()) are batched; multi-seat and held seats are all-or-nothing per
+    // request, so they stay one transaction each, behind the admission locks when those are on
+    private volatile BookingBatcher batcher;
+
+    // Created on first use so the sweeper thread only runs once a customer actually holds seats
+    private volatile SeatHolds seatHolds;
+
+    // Results of recent keyed requests, so a retry is answered without touching the database
+    private final LruCache<String, SeatHold> recentRequests =
+            new LruCache<>(Integer.getInteger("booking.idempotencyCacheSize", 10_000));
 
     private BookingController() {
+        if (Boolean.getBoolean("booking.groupCommit")) {
+            setGroupCommit(true);
+        }
     }
 
     public static BookingController getInstance() {
@@ -39,15 +111,26 @@ public class BookingController {
         return -1;
     }
 
-    // Remove bookings tied to any schedule on a given route
+    // Remove bookings tied to any schedule on a given route, taking them out of the rollup as well
     public int deleteBookingsByRoute(Long routeId) {
-        String sql = "DELETE FROM bookings WHERE schedule_id IN (SELECT id FROM schedules WHERE route_id = ?)";
+        String sql = "WITH gone AS (" +
+                "    DELETE FROM bookings WHERE schedule_id IN (SELECT id FROM schedules WHERE route_id = ?) " +
+                "    RETURNING schedule_id, status, total_amount" +
+                "), rolled AS (" +
+                "    " + ReportController.bookingRollup("SELECT schedule_id, " +
+                        "CASE WHEN status = 'CONFIRMED' THEN -1 ELSE 0 END AS sold, " +
+                        "CASE WHEN status = 'CONFIRMED' THEN -total_amount ELSE 0 END AS revenue, " +
+                        "CASE WHEN status = 'CANCELLED' THEN -1 ELSE 0 END AS cancelled FROM gone") +
+                ") " +
+                "SELECT COUNT(*) FROM gone";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, routeId);
-            return stmt.executeUpdate();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return -1;
@@ -55,366 +138,726 @@ public class BookingController {
     }
 
     public boolean createBooking(Booking booking) {
-        String insertBookingSql = "INSERT INTO bookings (user_id, schedule_id, seat_number, status, total_amount, booking_date) VALUES (?, ?, ?, ?, ?, ?)";
-        String updateScheduleSql = "UPDATE schedules SET available_seats = available_seats - 1 WHERE id = ? AND available_seats > 0";
+        return book(booking).isBooked();
+    }
 
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            conn.setAutoCommit(false); // Start Transaction
-
-            // 1. Try to decrement seat count (atomically ensures we don't overbook)
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateScheduleSql)) {
-                updateStmt.setLong(1, booking.getSchedule().getId());
-                int rowsUpdated = updateStmt.executeUpdate();
-
-                if (rowsUpdated > 0) {
-                    // Seats were available, proceed to book
-                    try (PreparedStatement insertStmt = conn.prepareStatement(insertBookingSql)) {
-                        insertStmt.setLong(1, booking.getCustomer().getId());
-                        insertStmt.setLong(2, booking.getSchedule().getId());
-                        insertStmt.setString(3, booking.getSeatNumber());
-                        insertStmt.setString(4, booking.getStatus());
-                        insertStmt.setBigDecimal(5, booking.getTotalAmount());
-                        insertStmt.setTimestamp(6, Timestamp.valueOf(booking.getBookingDate()));
-                        insertStmt.executeUpdate();
-                    }
+    // Same as book(booking) but safe to retry: the same key always yields the original result
+    public BookingOutcome book(Booking booking, String idempotencyKey) {
+        booking.setIdempotencyKey(idempotencyKey);
+        return book(booking);
+    }
 
-                    conn.commit(); // Commit Transaction
-                    System.out.println("Booking successful for: " + booking.getCustomer().getFullName());
-                    return true;
-                } else {
-                    System.out.println("Booking failed: No seats available.");
-                    conn.rollback();
-                    return false;
-                }
-            }
+    public BookingOutcome book(Booking booking) {
+        BookingOutcome previous = recentOutcome(booking);
+        return previous != null ? previous : booked(booking, admit(booking));
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+    // Answer for a keyed request this process has already completed, or null
+    private BookingOutcome recentOutcome(Booking booking) {
+        String key = requestKey(booking.getCustomer(), booking.getIdempotencyKey());
+        SeatHold previous = key != null ? recentRequests.get(key) : null;
+        if (previous == null) {
+            return null;
+        }
+        if (!previous.getBookingIds().isEmpty()) {
+            booking.setId(previous.getBookingIds().get(0));
         }
+        return previous.getOutcome();
     }
 
-   public List<String> getTakenSeats(Long scheduleId) {
-    List<String> takenSeats = new ArrayList<>();
-    String sql = "SELECT seat_number FROM bookings WHERE schedule_id = ? AND status = 'CONFIRMED'";
+    // Bookkeeping after a booking was applied, however it was admitted: remember the answer for retries.
+    // The seat change is published where a row is actually inserted (bookNow, BookingBatcher), since a
+    // BOOKED replay of an earlier request takes no seat.
+    private BookingOutcome booked(Booking booking, BookingOutcome outcome) {
+        String key = requestKey(booking.getCustomer(), booking.getIdempotencyKey());
+        if (key != null && outcome != BookingOutcome.FAILED) {
+            List<Long> ids = booking.getId() != null ? List.of(booking.getId()) : List.of();
+            recentRequests.put(key, new SeatHold(booking.getSchedule().getId(), ids,
+                    List.of(booking.getSeatNumber()), null, outcome));
+        }
+        return outcome;
+    }
 
-    try (Connection conn = DatabaseConnection.getConnection();
-         PreparedStatement stmt = conn.prepareStatement(sql)) {
+    private BookingOutcome admit(Booking booking) {
+        BookingBatcher b = batcher;
+        if (b != null) {
+            return b.submit(booking).join();
+        }
+        return admitted(booking.getSchedule().getId(), () -> bookNow(booking));
+    }
 
-        stmt.setLong(1, scheduleId);
-        try (ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                takenSeats.add(rs.getString("seat_number"));
-            }
+    // Runs work under the schedule's admission lock when admission control is on
+    private <T> T admitted(Long scheduleId, Supplier<T> work) {
+        if (!admissionControl) {
+            return work.get();
+        }
+        int stripe = scheduleLocks.lock(scheduleId);
+        try {
+            return work.get();
+        } finally {
+            scheduleLocks.unlock(stripe);
         }
+    }
 
-    } catch (SQLException e) {
-        e.printStackTrace();
+    // Completes once the booking has been applied; batched when group commit is on. Same checks and
+    // bookkeeping as book()
+    public CompletableFuture<BookingOutcome> bookAsync(Booking booking) {
+        BookingOutcome previous = recentOutcome(booking);
+        if (previous != null) {
+            return CompletableFuture.completedFuture(previous);
+        }
+        BookingBatcher b = batcher;
+        if (b != null) {
+            return b.submit(booking).thenApply(outcome -> booked(booking, outcome));
+        }
+        return CompletableFuture.supplyAsync(() -> booked(booking, admit(booking)));
     }
 
-    return takenSeats;
-}
+    public synchronized void setGroupCommit(boolean enabled) {
+        if (enabled && batcher == null) {
+            batcher = new BookingBatcher(
+                    Integer.getInteger("booking.batchSize", 32),
+                    Long.getLong("booking.lingerMs", 5L),
+                    Integer.getInteger("booking.batchWorkers", 2),
+                    this::bookNow);
+        } else if (!enabled && batcher != null) {
+            // New bookings skip the batcher from here on; ones that already picked it up still complete
+            BookingBatcher old = batcher;
+            batcher = null;
+            old.shutdown();
+        }
+    }
 
+    public boolean isGroupCommit() { return batcher != null; }
 
-    public List<Booking> getBookingsForUser(Long userId) {
-        List<Booking> userBookings = new ArrayList<>();
-        // Join Tables to reconstruct the full context (Booking -> Schedule ->
-        // Route/Bus)
-        String sql = "SELECT bk.*, " +
-                "s.departure_time, s.arrival_time, s.ticket_price, " +
-                "b.id as bus_id, b.bus_number, b.total_seats, b.type as bus_type, " +
-                "r.id as route_id, r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
-                "u.full_name, u.role, u.password " +
-                "FROM bookings bk " +
-                "JOIN schedules s ON bk.schedule_id = s.id " +
-                "JOIN buses b ON s.bus_id = b.id " +
-                "JOIN routes r ON s.route_id = r.id " +
-                "JOIN users u ON bk.user_id = u.id " +
-                "WHERE bk.user_id = ?";
+    // Null when group commit is off
+    public BookingBatcher getBatcher() { return batcher; }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
+    public boolean isAdmissionControl() { return admissionControl; }
+    public void setAdmissionControl(boolean enabled) { this.admissionControl = enabled; }
 
-            stmt.setLong(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    // Reconstruct Objects
-                    User user = new User(rs.getLong("user_id"), rs.getString("full_name"), rs.getString("password"),
-                            rs.getString("role"));
+    // Wait-time counters per stripe; a hot departure shows up as one stripe with a high average wait
+    public List<StripedLocks.StripeStats> getLockStats() {
+        return scheduleLocks.getStats();
+    }
+
+    private BookingOutcome bookNow(Booking booking) {
+        Long scheduleId = booking.getSchedule().getId();
+        boolean[] inserted = new boolean[1];
+
+        try {
+            // A single statement, so autocommit is enough; a deadlock or serialization failure is re-run
+            BookingOutcome outcome = transactions.execute(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(BOOK_SQL)) {
+                    stmt.setLong(1, booking.getCustomer().getId());
+                    stmt.setString(2, booking.getIdempotencyKey());
+                    stmt.setLong(3, scheduleId);
+                    stmt.setString(4, booking.getSeatNumber());
+                    stmt.setLong(5, scheduleId);
+                    stmt.setLong(6, booking.getCustomer().getId());
+                    stmt.setString(7, booking.getSeatNumber());
+                    stmt.setString(8, booking.getStatus());
+                    stmt.setBigDecimal(9, booking.getTotalAmount());
+                    stmt.setTimestamp(10, Timestamp.valueOf(booking.getBookingDate()));
+                    stmt.setString(11, booking.getIdempotencyKey());
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        long bookingId = rs.getLong("booking_id");
+                        if (!rs.wasNull()) {
+                            booking.setId(bookingId);
+                            inserted[0] = rs.getBoolean("inserted"); // false: replay of an earlier request
+                            System.out.println("Booking successful for: " + booking.getCustomer().getFullName());
+                            return BookingOutcome.BOOKED;
+                        }
+                        if (rs.getBoolean("seat_taken")) {
+                            System.out.println("Booking failed: Seat " + booking.getSeatNumber() + " already taken.");
+                            return BookingOutcome.SEAT_TAKEN;
+                        }
+                        System.out.println("Booking failed: No seats available.");
+                        return BookingOutcome.SOLD_OUT;
+                    }
+                }
+            });
+            if (inserted[0]) {
+                ScheduleController.getInstance().seatsChanged(scheduleId, -1);
+            }
+            return outcome;
+        } catch (SQLException e) {
+            if (isUniqueViolation(e)) {
+                // Either a concurrent retry with the same key won, or another customer got the seat first
+                List<Long> prior = findIdsByIdempotencyKey(booking.getCustomer().getId(), booking.getIdempotencyKey());
+                if (!prior.isEmpty()) {
+                    booking.setId(prior.get(0));
+                    return BookingOutcome.BOOKED;
+                }
+                System.out.println("Booking failed: Seat " + booking.getSeatNumber() + " already taken.");
+                return BookingOutcome.SEAT_TAKEN;
+            }
+            e.printStackTrace();
+            return BookingOutcome.FAILED;
+        }
+    }
 
-                    Bus bus = new Bus(rs.getLong("bus_id"), rs.getString("bus_number"), rs.getInt("total_seats"),
-                            rs.getString("bus_type"));
+    // Books several seats on one schedule atomically: either every seat is booked or none is
+    public BookingOutcome createBookings(User customer, Schedule schedule, List<String> seatNumbers) {
+        return createBookings(customer, schedule, seatNumbers, null);
+    }
 
-                    Route route = new Route(rs.getLong("route_id"), rs.getString("source_city"),
-                            rs.getString("destination_city"), rs.getDouble("distance_km"),
-                            rs.getString("estimated_duration"));
+    public BookingOutcome createBookings(User customer, Schedule schedule, List<String> seatNumbers,
+            String idempotencyKey) {
+        return reserveKeyed(customer, schedule, seatNumbers, null, idempotencyKey).getOutcome();
+    }
 
-                    Schedule schedule = new Schedule(rs.getLong("schedule_id"), bus, route,
-                            rs.getTimestamp("departure_time").toLocalDateTime(),
-                            rs.getTimestamp("arrival_time").toLocalDateTime(), rs.getBigDecimal("ticket_price"));
+    // Holds seats as PENDING bookings for the configured TTL; confirmHold() turns them into real bookings
+    public SeatHold holdSeats(User customer, Schedule schedule, List<String> seatNumbers) {
+        return holdSeats(customer, schedule, seatNumbers, null);
+    }
 
-                    Booking booking = new Booking(
-                            rs.getLong("id"), user, schedule,
-                            rs.getString("seat_number"),
-                            rs.getBigDecimal("total_amount"));
+    public SeatHold holdSeats(User customer, Schedule schedule, List<String> seatNumbers, String idempotencyKey) {
+        SeatHolds holds = getSeatHolds();
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(holds.getTtlMillis() * 1_000_000L);
 
-                    booking.setStatus(rs.getString("status"));
-                    booking.setBookingDate(rs.getTimestamp("booking_date").toLocalDateTime());
+        SeatHold hold = reserveKeyed(customer, schedule, seatNumbers, expiresAt, idempotencyKey);
+        if (hold.isHeld()) {
+            // Re-tracking a replayed hold is harmless: expiry only deletes rows that are still PENDING
+            holds.track(hold.getBookingIds(), System.currentTimeMillis() + holds.getTtlMillis());
+        }
+        return hold;
+    }
 
-                    userBookings.add(booking);
+    private SeatHold reserveKeyed(User customer, Schedule schedule, List<String> seatNumbers,
+            LocalDateTime holdUntil, String idempotencyKey) {
+        String key = requestKey(customer, idempotencyKey);
+        if (key != null) {
+            SeatHold previous = recentRequests.get(key);
+            if (previous != null) {
+                return previous;
+            }
+        }
+        SeatHold result = admitted(schedule.getId(),
+                () -> reserveSeats(customer, schedule, seatNumbers, holdUntil, idempotencyKey));
+        if (key != null && result.getOutcome() != BookingOutcome.FAILED) {
+            recentRequests.put(key, result);
+        }
+        return result;
+    }
+
+    // Checkout: PENDING -> CONFIRMED for every seat in the hold, or nothing (false) if any of them has been
+    // released or has run past its expiry, whether or not the sweeper has deleted it yet
+    public boolean confirmHold(SeatHold hold, Long userId) {
+        if (!hold.isHeld()) {
+            return false;
+        }
+        String sql = "WITH confirmed AS (" +
+                "    UPDATE bookings SET status = 'CONFIRMED', hold_expires_at = NULL, booking_date = ? " +
+                "    WHERE id = ANY(?) AND user_id = ? AND status = 'PENDING' AND hold_expires_at > NOW() " +
+                "    RETURNING schedule_id, total_amount" +
+                "), sold AS (" +
+                "    " + ReportController.bookingRollup("SELECT schedule_id, 1 AS sold, total_amount AS revenue, " +
+                        "0 AS cancelled FROM confirmed") +
+                ") " +
+                "SELECT COUNT(*) FROM confirmed";
+
+        try {
+            boolean confirmed = transactions.inTransaction(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                    stmt.setArray(2, conn.createArrayOf("bigint", hold.getBookingIds().toArray()));
+                    stmt.setLong(3, userId);
+                    int updated;
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        updated = rs.next() ? rs.getInt(1) : 0;
+                    }
+                    if (updated != hold.getBookingIds().size() && !isAlreadyConfirmed(conn, hold, userId)) {
+                        conn.rollback(); // Part of the hold already expired
+                        return false;
+                    }
                 }
+                return true;
+            });
+            if (confirmed) {
+                getSeatHolds().forget(hold.getBookingIds());
             }
+            return confirmed;
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
-        return userBookings;
     }
 
-    public boolean cancelBooking(Long bookingId, Long userId) {
-        String selectSql = "SELECT schedule_id FROM bookings WHERE id = ? AND user_id = ? AND status = 'CONFIRMED' FOR UPDATE";
-        String updateBookingSql = "UPDATE bookings SET status = 'CANCELLED' WHERE id = ? AND user_id = ? AND status = 'CONFIRMED'";
-        String updateScheduleSql = "UPDATE schedules SET available_seats = available_seats + 1 WHERE id = ?";
-
-        Connection conn = null;
-        try {
-            conn = DatabaseConnection.getConnection();
-            if (conn == null) {
-                return false;
+    // A retried checkout finds its seats already CONFIRMED; treat that as success rather than expiry
+    private boolean isAlreadyConfirmed(Connection conn, SeatHold hold, Long userId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM bookings WHERE id = ANY(?) AND user_id = ? AND status = 'CONFIRMED'";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("bigint", hold.getBookingIds().toArray()));
+            stmt.setLong(2, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == hold.getBookingIds().size();
             }
-            conn.setAutoCommit(false);
-
-            Long scheduleId = null;
-            try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
-                stmt.setLong(1, bookingId);
-                stmt.setLong(2, userId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        scheduleId = rs.getLong("schedule_id");
-                    }
+        }
+    }
+
+    // Gives held seats back immediately (customer backed out of checkout)
+    public boolean releaseHold(SeatHold hold) {
+        if (!hold.isHeld()) {
+            return true;
+        }
+        return getSeatHolds().release(hold.getBookingIds());
+    }
+
+    public SeatHolds getSeatHolds() {
+        SeatHolds holds = seatHolds;
+        if (holds == null) {
+            synchronized (this) {
+                if (seatHolds == null) {
+                    seatHolds = new SeatHolds(
+                            Long.getLong("booking.holdTtlSeconds", 300L) * 1000L,
+                            Long.getLong("booking.holdSweepMs", 5_000L),
+                            Integer.getInteger("booking.holdStaleSweepEvery", 12));
                 }
+                holds = seatHolds;
             }
+        }
+        return holds;
+    }
 
-            if (scheduleId == null) {
-                conn.rollback();
-                return false; // Nothing to cancel (not found or already cancelled)
+    // Shared by confirmed and held bookings; holdUntil == null books straight to CONFIRMED
+    private SeatHold reserveSeats(User customer, Schedule schedule, List<String> seatNumbers,
+            LocalDateTime holdUntil, String idempotencyKey) {
+        if (seatNumbers == null || seatNumbers.isEmpty()) {
+            return new SeatHold(schedule.getId(), List.of(), List.of(), holdUntil, BookingOutcome.FAILED);
+        }
+        if (new HashSet<>(seatNumbers).size() != seatNumbers.size()) {
+            // Same seat requested twice
+            return new SeatHold(schedule.getId(), List.of(), seatNumbers, holdUntil, BookingOutcome.SEAT_TAKEN);
+        }
+        BookingOutcome outcome = BookingOutcome.FAILED;
+        List<Long> ids = new ArrayList<>();
+        boolean[] inserted = new boolean[1];
+        List<Booking> bookings = new ArrayList<>(seatNumbers.size());
+        for (String seat : seatNumbers) {
+            Booking booking = new Booking(null, customer, schedule, seat, schedule.getTicketPrice());
+            if (holdUntil != null) {
+                booking.setStatus("PENDING");
             }
+            booking.setIdempotencyKey(idempotencyKey);
+            bookings.add(booking);
+        }
 
-            try (PreparedStatement stmt = conn.prepareStatement(updateBookingSql)) {
-                stmt.setLong(1, bookingId);
-                stmt.setLong(2, userId);
-                int affected = stmt.executeUpdate();
-                if (affected == 0) {
+        try {
+            outcome = transactions.inTransaction(conn -> {
+                ids.clear(); // may be a re-run after a serialization failure
+                inserted[0] = false;
+                BookingOutcome result = reserveSeats(conn, schedule, bookings, holdUntil, idempotencyKey, ids,
+                        inserted);
+                if (!result.isBooked()) {
                     conn.rollback();
-                    return false;
                 }
+                return result;
+            });
+            if (outcome.isBooked()) {
+                System.out.println((holdUntil != null ? "Held " : "Booked ") + ids.size()
+                        + " seat(s) for: " + customer.getFullName());
+            }
+            // A replayed request got its earlier bookings back and took no seats
+            if (inserted[0]) {
+                ScheduleController.getInstance().seatsChanged(schedule.getId(), -seatNumbers.size());
+            }
+        } catch (SQLException e) {
+            ids.clear();
+            if (isUniqueViolation(e)) {
+                // A concurrent retry with the same key may have won; otherwise a seat was taken under us
+                ids.addAll(findIdsByIdempotencyKey(customer.getId(), idempotencyKey));
+                outcome = ids.isEmpty() ? BookingOutcome.SEAT_TAKEN : BookingOutcome.BOOKED;
+            } else {
+                e.printStackTrace();
             }
+        }
+        return new SeatHold(schedule.getId(), ids, seatNumbers, holdUntil, outcome);
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(updateScheduleSql)) {
-                stmt.setLong(1, scheduleId);
-                stmt.executeUpdate();
+    // Runs inside the caller's transaction; fills ids with the new (or previously created) booking ids and
+    // sets inserted[0] only when it created them
+    private BookingOutcome reserveSeats(Connection conn, Schedule schedule, List<Booking> bookings,
+            LocalDateTime holdUntil, String idempotencyKey, List<Long> ids, boolean[] inserted) throws SQLException {
+        String updateScheduleSql = "UPDATE schedules SET available_seats = available_seats - ? WHERE id = ? AND available_seats >= ?";
+        String takenSql = "SELECT 1 FROM bookings WHERE schedule_id = ? AND status IN ('CONFIRMED', 'PENDING') AND seat_number = ANY(?) LIMIT 1";
+
+        // 0. A retry of a request that already went through gets the original bookings back
+        if (idempotencyKey != null) {
+            ids.addAll(findIdsByIdempotencyKey(conn, bookings.get(0).getCustomer().getId(), idempotencyKey));
+            if (!ids.isEmpty()) {
+                return BookingOutcome.BOOKED;
             }
+        }
 
-            conn.commit();
-            return true;
+        // 1. Reserve n seats in one guarded decrement; this also takes the schedule row lock
+        try (PreparedStatement stmt = conn.prepareStatement(updateScheduleSql)) {
+            stmt.setInt(1, bookings.size());
+            stmt.setLong(2, schedule.getId());
+            stmt.setInt(3, bookings.size());
+            if (stmt.executeUpdate() == 0) {
+                return BookingOutcome.SOLD_OUT;
+            }
+        }
+
+        // 2. With the row lock held, no other booking for this schedule can slip in between check and insert
+        try (PreparedStatement stmt = conn.prepareStatement(takenSql)) {
+            stmt.setLong(1, schedule.getId());
+            stmt.setArray(2, conn.createArrayOf("varchar", bookings.stream().map(Booking::getSeatNumber).toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return BookingOutcome.SEAT_TAKEN;
+                }
+            }
+        }
+
+        // 3. All seats in one batched insert
+        insertBookings(conn, schedule.getId(), bookings, holdUntil);
+        for (Booking b : bookings) {
+            ids.add(b.getId());
+        }
+        inserted[0] = true;
+        return BookingOutcome.BOOKED;
+    }
+
+    // Keys are the client's own, so they only mean something together with the customer who sent them
+    private static String requestKey(User customer, String idempotencyKey) {
+        return idempotencyKey == null ? null : customer.getId() + ":" + idempotencyKey;
+    }
+
+    private List<Long> findIdsByIdempotencyKey(Long userId, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return new ArrayList<>();
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn != null) {
+                return findIdsByIdempotencyKey(conn, userId, idempotencyKey);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    static List<Long> findIdsByIdempotencyKey(Connection conn, Long userId, String idempotencyKey)
+            throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        String sql = "SELECT id FROM bookings WHERE user_id = ? AND idempotency_key = ? ORDER BY id";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, userId);
+            stmt.setString(2, idempotencyKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
                 }
             }
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+        }
+        return ids;
+    }
+
+    // Batched INSERT of bookings for one schedule; fills in the generated ids and adds the CONFIRMED ones
+    // to the rollup. Caller owns the transaction.
+    static void insertBookings(Connection conn, Long scheduleId, List<Booking> bookings, LocalDateTime holdUntil)
+            throws SQLException {
+        String insertSql = "INSERT INTO bookings (user_id, schedule_id, seat_number, status, total_amount, booking_date, " +
+                "hold_expires_at, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp holdTs = holdUntil != null ? Timestamp.valueOf(holdUntil) : null;
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Booking b : bookings) {
+                stmt.setLong(1, b.getCustomer().getId());
+                stmt.setLong(2, scheduleId);
+                stmt.setString(3, b.getSeatNumber());
+                stmt.setString(4, b.getStatus());
+                stmt.setBigDecimal(5, b.getTotalAmount());
+                stmt.setTimestamp(6, Timestamp.valueOf(b.getBookingDate()));
+                stmt.setTimestamp(7, holdTs);
+                stmt.setString(8, b.getIdempotencyKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                for (Booking b : bookings) {
+                    if (keys.next()) {
+                        b.setId(keys.getLong(1));
+                    }
                 }
             }
         }
+
+        int sold = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Booking b : bookings) {
+            if ("CONFIRMED".equals(b.getStatus())) {
+                sold++;
+                revenue = revenue.add(b.getTotalAmount());
+            }
+        }
+        if (sold > 0) {
+            ReportController.recordSales(conn, scheduleId, sold, revenue);
+        }
     }
 
-    public List<Booking> getAllBookings() {
-        List<Booking> bookings = new ArrayList<>();
-        String sql = "SELECT bk.*, " +
-                "s.departure_time, s.arrival_time, s.ticket_price, " +
-                "b.id as bus_id, b.bus_number, b.total_seats, b.type as bus_type, " +
-                "r.id as route_id, r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
-                "u.full_name, u.role, u.password " +
-                "FROM bookings bk " +
-                "JOIN schedules s ON bk.schedule_id = s.id " +
-                "JOIN buses b ON s.bus_id = b.id " +
-                "JOIN routes r ON s.route_id = r.id " +
-                "JOIN users u ON bk.user_id = u.id";
+    // Batch failures wrap the real error, so walk the chain
+    static boolean isUniqueViolation(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(cur.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Bitmap of taken seats (confirmed or held) for a schedule; seat numbers are read as ints so no per-seat Strings are built
+    public SeatMap getSeatMap(Long scheduleId, int capacity) {
+        SeatMap seatMap = new SeatMap(capacity);
+        String sql = "SELECT seat_number FROM bookings WHERE schedule_id = ? AND status IN ('CONFIRMED', 'PENDING') " +
+                "AND seat_number ~ '^[0-9]{1,9}$'";
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                User user = new User(rs.getLong("user_id"), rs.getString("full_name"), rs.getString("password"),
-                        rs.getString("role"));
+            stmt.setLong(1, scheduleId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    seatMap.take(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return seatMap;
+    }
+
+   public List<String> getTakenSeats(Long scheduleId) {
+    List<String> takenSeats = new ArrayList<>();
+    String sql = "SELECT seat_number FROM bookings WHERE schedule_id = ? AND status IN ('CONFIRMED', 'PENDING')";
 
-                Bus bus = new Bus(rs.getLong("bus_id"), rs.getString("bus_number"), rs.getInt("total_seats"),
-                        rs.getString("bus_type"));
+    try (Connection conn = DatabaseConnection.getConnection();
+         PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+        stmt.setLong(1, scheduleId);
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                takenSeats.add(rs.getString("seat_number"));
+            }
+        }
 
-                Route route = new Route(rs.getLong("route_id"), rs.getString("source_city"),
-                        rs.getString("destination_city"), rs.getDouble("distance_km"),
-                        rs.getString("estimated_duration"));
+    } catch (SQLException e) {
+        e.printStackTrace();
+    }
 
-                Schedule schedule = new Schedule(rs.getLong("schedule_id"), bus, route,
-                        rs.getTimestamp("departure_time").toLocalDateTime(),
-                        rs.getTimestamp("arrival_time").toLocalDateTime(), rs.getBigDecimal("ticket_price"));
+    return takenSeats;
+}
 
-                Booking booking = new Booking(
-                        rs.getLong("id"), user, schedule,
-                        rs.getString("seat_number"),
-                        rs.getBigDecimal("total_amount"));
 
-                booking.setStatus(rs.getString("status"));
-                booking.setBookingDate(rs.getTimestamp("booking_date").toLocalDateTime());
+    public List<Booking> getBookingsForUser(Long userId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(BOOKING_SELECT + " WHERE bk.user_id = ?" + NEWEST_FIRST)) {
 
-                bookings.add(booking);
+            stmt.setLong(1, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return RowMapper.mapAll(rs, new BookingRowMapper(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return bookings;
+        return new ArrayList<>();
     }
 
-    public Booking getBookingById(Long bookingId) {
-        String sql = "SELECT bk.*, " +
-                "s.departure_time, s.arrival_time, s.ticket_price, " +
-                "b.id as bus_id, b.bus_number, b.total_seats, b.type as bus_type, " +
-                "r.id as route_id, r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
-                "u.full_name, u.role, u.password " +
-                "FROM bookings bk " +
-                "JOIN schedules s ON bk.schedule_id = s.id " +
-                "JOIN buses b ON s.bus_id = b.id " +
+    // One page of a customer's history, newest first. Pass null for the first page, then the booking date
+    // and id of the last booking already shown; a short page means there is nothing more.
+    public List<BookingSummary> getBookingSummariesForUser(Long userId, LocalDateTime beforeDate, Long beforeId,
+            int pageSize) {
+        return getSummaryPage(userId, beforeDate, beforeId, pageSize);
+    }
+
+    // Same for all customers (admin listing); includes the customer name
+    public List<BookingSummary> getBookingSummaries(LocalDateTime beforeDate, Long beforeId, int pageSize) {
+        return getSummaryPage(null, beforeDate, beforeId, pageSize);
+    }
+
+    // Seeks straight to the cursor on the index instead of skipping rows with OFFSET. Selects only what the
+    // listings show: the customer's own history doesn't join users at all, and buses are never needed.
+    private List<BookingSummary> getSummaryPage(Long userId, LocalDateTime beforeDate, Long beforeId, int pageSize) {
+        boolean admin = userId == null;
+        boolean first = beforeDate == null || beforeId == null;
+        String sql = "SELECT bk.id, bk.booking_date, bk.status, bk.seat_number, bk.total_amount, bk.schedule_id, " +
+                "s.departure_time, r.source_city, r.destination_city" + (admin ? ", u.full_name " : " ") +
+                "FROM bookings_history bk " +
+                "JOIN schedules_history s ON bk.schedule_id = s.id " +
                 "JOIN routes r ON s.route_id = r.id " +
-                "JOIN users u ON bk.user_id = u.id " +
-                "WHERE bk.id = ?";
+                (admin ? "JOIN users u ON bk.user_id = u.id " : "") +
+                "WHERE TRUE" +
+                (admin ? "" : " AND bk.user_id = ?") +
+                (first ? "" : " AND (bk.booking_date, bk.id) < (?, ?)") +
+                NEWEST_FIRST + " LIMIT ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setLong(1, bookingId);
+            int i = 1;
+            if (!admin) {
+                stmt.setLong(i++, userId);
+            }
+            if (!first) {
+                stmt.setObject(i++, beforeDate);
+                stmt.setLong(i++, beforeId);
+            }
+            stmt.setInt(i, pageSize);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = new User(rs.getLong("user_id"), rs.getString("full_name"), rs.getString("password"),
-                            rs.getString("role"));
+                return RowMapper.mapAll(rs, new BookingSummaryMapper(rs, admin));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
 
-                    Bus bus = new Bus(rs.getLong("bus_id"), rs.getString("bus_number"), rs.getInt("total_seats"),
-                            rs.getString("bus_type"));
+    // Streams all bookings for accounting; null if the export failed (the output may then be partial)
+    public BookingExport.Result exportBookings(OutputStream out, BookingExport.Format format, boolean gzip) {
+        try {
+            BookingExport.Result result = BookingExport.export(out, format, gzip);
+            System.out.println("Exported bookings: " + result);
+            return result;
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-                    Route route = new Route(rs.getLong("route_id"), rs.getString("source_city"),
-                            rs.getString("destination_city"), rs.getDouble("distance_km"),
-                            rs.getString("estimated_duration"));
+    public BookingExport.Result exportBookings(Writer out, BookingExport.Format format) {
+        try {
+            BookingExport.Result result = BookingExport.export(out, format);
+            System.out.println("Exported bookings: " + result);
+            return result;
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-                    Schedule schedule = new Schedule(rs.getLong("schedule_id"), bus, route,
-                            rs.getTimestamp("departure_time").toLocalDateTime(),
-                            rs.getTimestamp("arrival_time").toLocalDateTime(), rs.getBigDecimal("ticket_price"));
+    // Customer cancellation: only their own live booking
+    public boolean cancelBooking(Long bookingId, Long userId) {
+        Map<Long, Integer> cancelled = cancelBookings(List.of(bookingId), userId);
+        return cancelled != null && !cancelled.isEmpty();
+    }
 
-                    Booking booking = new Booking(
-                            rs.getLong("id"), user, schedule,
-                            rs.getString("seat_number"),
-                            rs.getBigDecimal("total_amount"));
+    // Admin cancellation of any live booking
+    public boolean cancelBooking(Long bookingId) {
+        Map<Long, Integer> cancelled = cancelBookings(List.of(bookingId));
+        return cancelled != null && !cancelled.isEmpty();
+    }
 
-                    booking.setStatus(rs.getString("status"));
-                    booking.setBookingDate(rs.getTimestamp("booking_date").toLocalDateTime());
+    // Bulk cancellation. Each returns cancelled-booking counts per schedule id (empty if nothing was live),
+    // or null if the database call failed.
+    public Map<Long, Integer> cancelBookings(List<Long> bookingIds) {
+        return cancelBookings(bookingIds, null);
+    }
 
-                    return booking;
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // userId restricts the cancellation to that customer's bookings; null cancels regardless of owner
+    public Map<Long, Integer> cancelBookings(List<Long> bookingIds, Long userId) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            return new LinkedHashMap<>();
         }
-        return null;
+        Long[] ids = bookingIds.toArray(new Long[0]);
+        if (userId == null) {
+            return cancelWhere("id = ANY(?)", (Object) ids);
+        }
+        return cancelWhere("id = ANY(?) AND user_id = ?", ids, userId);
     }
 
-    public boolean cancelBooking(Long bookingId) {
-        String updateBookingSql = "UPDATE bookings SET status = 'CANCELLED' WHERE id = ?";
-        String getScheduleIdSql = "SELECT schedule_id FROM bookings WHERE id = ?";
-        String updateScheduleSql = "UPDATE schedules SET available_seats = available_seats + 1 WHERE id = ?";
+    // Whole departure, e.g. the bus broke down
+    public Map<Long, Integer> cancelBookingsForSchedule(Long scheduleId) {
+        return cancelWhere("schedule_id = ?", scheduleId);
+    }
+
+    public Map<Long, Integer> cancelBookingsForRoute(Long routeId) {
+        return cancelWhere("schedule_id IN (SELECT id FROM schedules WHERE route_id = ?)", routeId);
+    }
+
+    // One statement however many bookings match: lock them, flip them to CANCELLED, give the seats back with
+    // one aggregated UPDATE per schedule and take confirmed sales out of the rollup. The status guard means a
+    // booking is only ever counted once, even if two cancellations race; the lock makes "previous" the
+    // status the update actually replaced.
+    private Map<Long, Integer> cancelWhere(String filter, Object... params) {
+        String sql =
+                "WITH previous AS (" +
+                "    SELECT id, status FROM bookings " +
+                "    WHERE " + filter + " AND status IN ('CONFIRMED', 'PENDING') FOR UPDATE" +
+                "), cancelled AS (" +
+                "    UPDATE bookings b SET status = 'CANCELLED', hold_expires_at = NULL FROM previous p " +
+                "    WHERE b.id = p.id RETURNING b.schedule_id, b.total_amount, p.status AS was" +
+                "), rolled AS (" +
+                "    " + ReportController.bookingRollup("SELECT schedule_id, " +
+                        "CASE WHEN was = 'CONFIRMED' THEN -1 ELSE 0 END AS sold, " +
+                        "CASE WHEN was = 'CONFIRMED' THEN -total_amount ELSE 0 END AS revenue, " +
+                        "1 AS cancelled FROM cancelled") +
+                "), counts AS (" +
+                "    SELECT schedule_id, COUNT(*) AS n FROM cancelled GROUP BY schedule_id" +
+                "), restored AS (" +
+                "    UPDATE schedules s SET available_seats = s.available_seats + c.n FROM counts c " +
+                "    WHERE s.id = c.schedule_id RETURNING s.id" +
+                ") " +
+                "SELECT schedule_id, n FROM counts ORDER BY schedule_id";
 
-        Connection conn = null;
         try {
-            conn = DatabaseConnection.getConnection();
-            if (conn == null) {
-                System.err.println("No DB connection; cannot cancel booking.");
-                return false;
-            }
-            conn.setAutoCommit(false);
-
-            Long scheduleId = null;
-            try (PreparedStatement stmt = conn.prepareStatement(getScheduleIdSql)) {
-                stmt.setLong(1, bookingId);
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        scheduleId = rs.getLong("schedule_id");
+            Map<Long, Integer> counts = transactions.execute(conn -> {
+                Map<Long, Integer> result = new LinkedHashMap<>();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < params.length; i++) {
+                        Object param = params[i];
+                        if (param instanceof Long[]) {
+                            stmt.setArray(i + 1, conn.createArrayOf("bigint", (Long[]) param));
+                        } else {
+                            stmt.setObject(i + 1, param);
+                        }
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            result.put(rs.getLong("schedule_id"), rs.getInt("n"));
+                        }
                     }
                 }
-            }
-
-            if (scheduleId == null) {
-                conn.rollback();
-                return false;
-            }
-
-            try (PreparedStatement stmt = conn.prepareStatement(updateBookingSql)) {
-                stmt.setLong(1, bookingId);
-                stmt.executeUpdate();
-            }
+                return result;
+            });
+            counts.forEach((scheduleId, n) -> ScheduleController.getInstance().seatsChanged(scheduleId, n));
+            int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+            System.out.println("Cancelled " + total + " booking(s) on " + counts.size() + " schedule(s).");
+            return counts;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            try (PreparedStatement stmt = conn.prepareStatement(updateScheduleSql)) {
-                stmt.setLong(1, scheduleId);
-                stmt.executeUpdate();
-            }
+    public List<Booking> getAllBookings() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(BOOKING_SELECT + NEWEST_FIRST);
+             ResultSet rs = stmt.executeQuery()) {
 
-            conn.commit();
-            System.out.println("Booking cancelled with ID: " + bookingId);
-            return true;
+            return RowMapper.mapAll(rs, new BookingRowMapper(rs));
         } catch (SQLException e) {
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
-            }
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException e) {
-                    e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    public Booking getBookingById(Long bookingId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(BOOKING_SELECT + " WHERE bk.id = ?")) {
+
+            stmt.setLong(1, bookingId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new BookingRowMapper(rs).map(rs);
                 }
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
+        return null;
     }
 }
@@ -0,0 +1,273 @@
+package controllers;
+
+import db.DatabaseConnection;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams every booking to a file for accounting. The join runs with autocommit off and a bounded
+ * fetch size, so the driver uses a server-side cursor and only one fetch batch is ever in memory;
+ * rows are written straight from the ResultSet without building model objects.
+ */
+public class BookingExport {
+
+    public enum Format { CSV, JSONL }
+
+    public static class Result {
+        private final long rows;
+        private final long bytes;
+        private final long elapsedMillis;
+
+        Result(long rows, long bytes, long elapsedMillis) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public long getRows() { return rows; }
+        // Bytes written to the target stream (after compression); characters when exporting to a Writer
+        public long getBytes() { return bytes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? rows * 1000.0 : rows * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows, %d bytes in %.1f s (%.0f rows/s)",
+                    rows, bytes, elapsedMillis / 1000.0, getRowsPerSecond());
+        }
+    }
+
+    // No password or other credentials; one row per booking, archived trips included
+    private static final String EXPORT_SQL = "SELECT bk.id AS booking_id, bk.booking_date, bk.status, bk.seat_number, " +
+            "bk.total_amount, bk.user_id, u.full_name, bk.schedule_id, s.departure_time, s.arrival_time, " +
+            "b.bus_number, r.source_city, r.destination_city " +
+            "FROM bookings_history bk " +
+            "JOIN schedules_history s ON bk.schedule_id = s.id " +
+            "JOIN buses b ON s.bus_id = b.id " +
+            "JOIN routes r ON s.route_id = r.id " +
+            "JOIN users u ON bk.user_id = u.id " +
+            "ORDER BY bk.id";
+
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 1_000);
+
+    private BookingExport() {}
+
+    // Closes neither stream; gzip output is finished so the caller gets a complete archive
+    static Result export(OutputStream out, Format format, boolean gzip) throws SQLException, IOException {
+        CountingOutputStream counted = new CountingOutputStream(out);
+        GZIPOutputStream zip = gzip ? new GZIPOutputStream(counted, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zip != null ? zip : counted, StandardCharsets.UTF_8),
+                64 * 1024);
+
+        long start = System.currentTimeMillis();
+        long rows = write(writer, format);
+        writer.flush();
+        if (zip != null) {
+            zip.finish();
+        }
+        counted.flush();
+        return new Result(rows, counted.count, System.currentTimeMillis() - start);
+    }
+
+    static Result export(Writer out, Format format) throws SQLException, IOException {
+        CountingWriter counted = new CountingWriter(out);
+        Writer writer = new BufferedWriter(counted, 64 * 1024);
+
+        long start = System.currentTimeMillis();
+        long rows = write(writer, format);
+        writer.flush();
+        return new Result(rows, counted.count, System.currentTimeMillis() - start);
+    }
+
+    private static long write(Writer out, Format format) throws SQLException, IOException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("No DB connection; cannot export bookings.");
+        }
+        try {
+            // Postgres only streams with a cursor inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int n = meta.getColumnCount();
+                    String[] names = new String[n];
+                    boolean[] quoted = new boolean[n];
+                    for (int i = 0; i < n; i++) {
+                        names[i] = meta.getColumnLabel(i + 1);
+                        quoted[i] = !isNumeric(meta.getColumnType(i + 1));
+                    }
+
+                    if (format == Format.CSV) {
+                        for (int i = 0; i < n; i++) {
+                            if (i > 0) out.write(',');
+                            out.write(names[i]);
+                        }
+                        out.write('\n');
+                    }
+
+                    long rows = 0;
+                    while (rs.next()) {
+                        if (format == Format.CSV) {
+                            writeCsvRow(out, rs, n);
+                        } else {
+                            writeJsonRow(out, rs, names, quoted);
+                        }
+                        rows++;
+                    }
+                    return rows;
+                }
+            } finally {
+                conn.rollback(); // read-only; just end the transaction
+            }
+        } finally {
+            conn.setAutoCommit(true);
+            conn.close();
+        }
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        switch (sqlType) {
+            case Types.SMALLINT: case Types.INTEGER: case Types.BIGINT:
+            case Types.NUMERIC: case Types.DECIMAL: case Types.REAL: case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String value(ResultSet rs, int column) throws SQLException {
+        Object v = rs.getObject(column);
+        if (v instanceof java.sql.Timestamp) {
+            return rs.getObject(column, LocalDateTime.class).toString();
+        }
+        return v == null ? null : v.toString();
+    }
+
+    private static void writeCsvRow(Writer out, ResultSet rs, int n) throws SQLException, IOException {
+        for (int i = 1; i <= n; i++) {
+            if (i > 1) out.write(',');
+            String v = value(rs, i);
+            if (v == null) {
+                continue;
+            }
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(v.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(v);
+            }
+        }
+        out.write('\n');
+    }
+
+    private static void writeJsonRow(Writer out, ResultSet rs, String[] names, boolean[] quoted)
+            throws SQLException, IOException {
+        out.write('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) out.write(',');
+            out.write('"');
+            out.write(names[i]);
+            out.write("\":");
+            String v = value(rs, i + 1);
+            if (v == null) {
+                out.write("null");
+            } else if (quoted[i]) {
+                writeJsonString(out, v);
+            } else {
+                out.write(v);
+            }
+        }
+        out.write("}\n");
+    }
+
+    private static void writeJsonString(Writer out, String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush(); // the caller owns the underlying stream
+        }
+    }
+
+    private static class CountingWriter extends Writer {
+        private final Writer out;
+        long count;
+
+        CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package controllers;
+
+import db.Columns;
+import db.IdentityMap;
+import db.RowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import models.Booking;
+import models.Schedule;
+import models.User;
+
+// Booking joined with its customer and full schedule (see BookingController.BOOKING_SELECT).
+// Customers and schedules are shared between the bookings of one identity map. Customers come without
+// their password hash (null), so they must not be passed to UserController.updateUser.
+class BookingRowMapper implements RowMapper<Booking> {
+
+    private final ScheduleRowMapper schedules;
+    private final int id;
+    private final int seatNumber;
+    private final int status;
+    private final int totalAmount;
+    private final int bookingDate;
+    private final int userId;
+    private final int fullName;
+    private final int role;
+    private final IdentityMap identities;
+
+    BookingRowMapper(ResultSet rs) throws SQLException {
+        this(rs, new IdentityMap());
+    }
+
+    // Pass the same map to several queries to share instances across them
+    BookingRowMapper(ResultSet rs, IdentityMap identities) throws SQLException {
+        Columns cols = new Columns(rs);
+        this.identities = identities;
+        schedules = new ScheduleRowMapper(cols, "schedule_id", identities);
+        id = cols.of("id");
+        seatNumber = cols.of("seat_number");
+        status = cols.of("status");
+        totalAmount = cols.of("total_amount");
+        bookingDate = cols.of("booking_date");
+        userId = cols.of("user_id");
+        fullName = cols.of("full_name");
+        role = cols.of("role");
+    }
+
+    @Override
+    public Booking map(ResultSet rs) throws SQLException {
+        long uId = rs.getLong(userId);
+        User user = identities.get(User.class, uId);
+        if (user == null) {
+            user = identities.put(User.class, uId,
+                    new User(uId, rs.getString(fullName), null, rs.getString(role)));
+        }
+        Schedule schedule = schedules.map(rs);
+
+        Booking booking = new Booking(rs.getLong(id), user, schedule, rs.getString(seatNumber),
+                rs.getBigDecimal(totalAmount));
+        booking.setStatus(rs.getString(status));
+        booking.setBookingDate(rs.getObject(bookingDate, LocalDateTime.class));
+        return booking;
+    }
+}
@@ -0,0 +1,51 @@
+package controllers;
+
+import db.Columns;
+import db.RowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import models.BookingSummary;
+
+// Reads the booking listing queries; full_name is optional so the customer history query can skip users
+class BookingSummaryMapper implements RowMapper<BookingSummary> {
+
+    private final int id;
+    private final int bookingDate;
+    private final int status;
+    private final int seatNumber;
+    private final int totalAmount;
+    private final int scheduleId;
+    private final int departureTime;
+    private final int sourceCity;
+    private final int destinationCity;
+    private final int customerName;
+
+    BookingSummaryMapper(ResultSet rs, boolean withCustomer) throws SQLException {
+        Columns cols = new Columns(rs);
+        id = cols.of("id");
+        bookingDate = cols.of("booking_date");
+        status = cols.of("status");
+        seatNumber = cols.of("seat_number");
+        totalAmount = cols.of("total_amount");
+        scheduleId = cols.of("schedule_id");
+        departureTime = cols.of("departure_time");
+        sourceCity = cols.of("source_city");
+        destinationCity = cols.of("destination_city");
+        customerName = withCustomer ? cols.of("full_name") : 0;
+    }
+
+    @Override
+    public BookingSummary map(ResultSet rs) throws SQLException {
+        return new BookingSummary(rs.getLong(id),
+                rs.getObject(bookingDate, LocalDateTime.class),
+                rs.getString(status),
+                rs.getString(seatNumber),
+                rs.getBigDecimal(totalAmount),
+                rs.getLong(scheduleId),
+                rs.getObject(departureTime, LocalDateTime.class),
+                rs.getString(sourceCity),
+                rs.getString(destinationCity),
+                customerName > 0 ? rs.getString(customerName) : null);
+    }
+}
@@ -0,0 +1,208 @@
+package controllers;
+
+import db.DatabaseConnection;
+import db.DatabaseSchema;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.Booking;
+import models.BookingOutcome;
+import models.Bus;
+import models.Route;
+import models.Schedule;
+import models.User;
+
+/**
+ * Booking throughput, one-by-one vs group commit, against the database in DatabaseConnection.
+ *
+ *   java -cp bin:lib/* controllers.BookingThroughputBench [bookings] [threads] [single|batched|both]
+ *
+ * Defaults: 2000 bookings from 32 threads, both modes. Each mode books every seat of its own fresh schedule
+ * through BookingController.book(), the path the application uses; the batcher takes booking.batchSize,
+ * booking.lingerMs and booking.batchWorkers as usual. The bench creates its own customer, bus, route and
+ * schedules and deletes them (with their bookings and rollup rows) when it is done.
+ */
+public class BookingThroughputBench {
+
+    public static void main(String[] args) throws Exception {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        String mode = args.length > 2 ? args[2] : "both";
+
+        DatabaseSchema.ensureInstalled();
+        Fixture fixture = Fixture.create(bookings);
+        if (fixture == null) {
+            System.err.println("Could not create bench data; is the database up?");
+            return;
+        }
+        try {
+            System.out.printf("%d bookings, %d threads%n", bookings, threads);
+            if (!mode.equals("batched")) {
+                run("one-by-one", false, fixture, bookings, threads, 0);
+            }
+            if (!mode.equals("single")) {
+                run("group commit", true, fixture, bookings, threads, 1);
+            }
+        } finally {
+            fixture.drop();
+            BookingController.getInstance().setGroupCommit(false);
+            DatabaseConnection.shutdown();
+        }
+        System.exit(0); // index, planner and hold threads are daemons, but don't wait on the pool's
+    }
+
+    private static void run(String label, boolean groupCommit, Fixture fixture, int bookings, int threads,
+            int slot) throws Exception {
+        BookingController controller = BookingController.getInstance();
+        controller.setGroupCommit(groupCommit);
+        Schedule schedule = fixture.schedule(slot);
+
+        Map<BookingOutcome, AtomicInteger> outcomes = new EnumMap<>(BookingOutcome.class);
+        for (BookingOutcome o : BookingOutcome.values()) {
+            outcomes.put(o, new AtomicInteger());
+        }
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // per-booking log lines
+        long started = System.nanoTime();
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                clients.add(pool.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < bookings) {
+                        Booking booking = new Booking(null, fixture.customer, schedule, "S" + (i + 1), BigDecimal.TEN);
+                        outcomes.get(controller.book(booking)).incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> f : clients) {
+                f.get();
+            }
+        } finally {
+            System.setOut(out);
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%-12s %8.2f s %10.1f bookings/s  %s%n", label, seconds, bookings / seconds, outcomes);
+        BookingBatcher batcher = controller.getBatcher();
+        if (batcher != null) {
+            System.out.printf("%-12s %d batches, average %.1f, largest %d, %d fallbacks%n", "", batcher.getBatchCount(),
+                    batcher.getAverageBatchSize(), batcher.getLargestBatch(), batcher.getFallbackCount());
+        }
+    }
+
+    // Rows the bench books against; tagged with a run id so a crashed run's leftovers are easy to find
+    private static class Fixture {
+        final User customer;
+        final Bus bus;
+        final Route route;
+        final List<Schedule> schedules = new ArrayList<>();
+
+        private Fixture(User customer, Bus bus, Route route) {
+            this.customer = customer;
+            this.bus = bus;
+            this.route = route;
+        }
+
+        static Fixture create(int seats) {
+            String tag = "bench-" + System.currentTimeMillis();
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) {
+                    return null;
+                }
+                User customer = new User(insert(conn, "INSERT INTO users (full_name, password, role) " +
+                        "VALUES (?, '', 'CUSTOMER') RETURNING id", tag), tag, null, "CUSTOMER");
+                Bus bus = new Bus(insert(conn, "INSERT INTO buses (bus_number, total_seats, type, is_operational) " +
+                        "VALUES (?, " + seats + ", 'Bench', TRUE) RETURNING id", tag), tag, seats, "Bench");
+                Route route = new Route(insert(conn, "INSERT INTO routes (source_city, destination_city, distance_km, " +
+                        "estimated_duration) VALUES (?, 'Bench', 0, '') RETURNING id", tag), tag, "Bench", 0, "");
+                Fixture fixture = new Fixture(customer, bus, route);
+
+                // One departure per mode, a day apart and a year out so they clash with nothing
+                LocalDateTime departure = LocalDateTime.now().plusYears(1).withNano(0);
+                for (int slot = 0; slot < 2; slot++) {
+                    LocalDateTime at = departure.plusDays(slot);
+                    Schedule s = new Schedule(null, bus, route, at, at.plusHours(1), BigDecimal.TEN);
+                    try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO schedules (bus_id, route_id, " +
+                            "departure_time, arrival_time, ticket_price, available_seats) VALUES (?, ?, ?, ?, ?, ?) " +
+                            "RETURNING id")) {
+                        stmt.setLong(1, bus.getId());
+                        stmt.setLong(2, route.getId());
+                        stmt.setTimestamp(3, Timestamp.valueOf(at));
+                        stmt.setTimestamp(4, Timestamp.valueOf(at.plusHours(1)));
+                        stmt.setBigDecimal(5, BigDecimal.TEN);
+                        stmt.setInt(6, seats);
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            rs.next();
+                            s.setId(rs.getLong(1));
+                        }
+                    }
+                    fixture.schedules.add(s);
+                }
+                return fixture;
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+
+        Schedule schedule(int slot) {
+            return schedules.get(slot);
+        }
+
+        void drop() {
+            String[] sql = {
+                    "DELETE FROM bookings WHERE schedule_id IN (SELECT id FROM schedules WHERE route_id = ?)",
+                    "DELETE FROM schedules WHERE route_id = ?",
+                    "DELETE FROM route_day_stats_log WHERE route_id = ?",
+                    "DELETE FROM route_day_stats WHERE route_id = ?",
+                    "DELETE FROM routes WHERE id = ?",
+            };
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                for (String s : sql) {
+                    try (PreparedStatement stmt = conn.prepareStatement(s)) {
+                        stmt.setLong(1, route.getId());
+                        stmt.executeUpdate();
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM buses WHERE id = ?")) {
+                    stmt.setLong(1, bus.getId());
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE id = ?")) {
+                    stmt.setLong(1, customer.getId());
+                    stmt.executeUpdate();
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private static long insert(Connection conn, String sql, String tag) throws SQLException {
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, tag);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    return rs.getLong(1);
+                }
+            }
+        }
+    }
+}
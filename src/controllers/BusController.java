@@ -70,16 +70,22 @@ public class BusController {
 
         String sql = "UPDATE buses SET bus_number = ?, total_seats = ?, type = ?, is_operational = ? WHERE id = ?";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, bus.getBusNumber());
-            stmt.setInt(2, bus.getTotalSeats());
-            stmt.setString(3, bus.getType());
-            stmt.setBoolean(4, bus.isOperational());
-            stmt.setLong(5, bus.getId());
-
-            return stmt.executeUpdate() > 0;
+        try {
+            // Seats offered by this bus's schedules are re-rolled at the new capacity
+            return TransactionExecutor.getInstance().inTransaction(conn -> {
+                ReportController.shiftSchedules(conn, "s.bus_id = ?", -1, bus.getId());
+                int rows;
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, bus.getBusNumber());
+                    stmt.setInt(2, bus.getTotalSeats());
+                    stmt.setString(3, bus.getType());
+                    stmt.setBoolean(4, bus.isOperational());
+                    stmt.setLong(5, bus.getId());
+                    rows = stmt.executeUpdate();
+                }
+                ReportController.shiftSchedules(conn, "s.bus_id = ?", 1, bus.getId());
+                return rows > 0;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -89,71 +95,57 @@ public class BusController {
     public boolean deleteBus(Long busId) {
         String selectRoutesSql = "SELECT DISTINCT route_id FROM schedules WHERE bus_id = ?";
         String deleteSchedulesSql = "DELETE FROM schedules WHERE bus_id = ?";
-        String deleteRoutesSql = "DELETE FROM routes WHERE id = ? AND NOT EXISTS (SELECT 1 FROM schedules WHERE route_id = ?)";
+        // Same clean-up as RouteController.deleteRoute, so a dropped route leaves no rollup rows behind
+        String deleteRoutesSql = "WITH gone AS (" +
+                "    DELETE FROM routes WHERE id = ? AND NOT EXISTS (SELECT 1 FROM schedules WHERE route_id = ?) RETURNING id" +
+                "), " + ReportController.dropRouteStats("SELECT id FROM gone") + " SELECT COUNT(*) FROM gone";
         String deleteBusSql = "DELETE FROM buses WHERE id = ?";
 
-        Connection conn = null;
         try {
-            conn = DatabaseConnection.getConnection();
-            if (conn == null) {
-                System.err.println("No DB connection; cannot delete bus.");
-                return false;
-            }
-            conn.setAutoCommit(false);
-
-            // Capture routes tied to this bus's schedules (so we can clean up orphan routes later)
-            List<Long> routeIds = new ArrayList<>();
-            try (PreparedStatement routeStmt = conn.prepareStatement(selectRoutesSql)) {
-                routeStmt.setLong(1, busId);
-                try (ResultSet rs = routeStmt.executeQuery()) {
-                    while (rs.next()) {
-                        routeIds.add(rs.getLong("route_id"));
+            boolean deleted = TransactionExecutor.getInstance().inTransaction(conn -> {
+                // Capture routes tied to this bus's schedules (so we can clean up orphan routes later)
+                List<Long> routeIds = new ArrayList<>();
+                try (PreparedStatement routeStmt = conn.prepareStatement(selectRoutesSql)) {
+                    routeStmt.setLong(1, busId);
+                    try (ResultSet rs = routeStmt.executeQuery()) {
+                        while (rs.next()) {
+                            routeIds.add(rs.getLong("route_id"));
+                        }
                     }
                 }
-            }
 
-            // Remove schedules for this bus
-            try (PreparedStatement schedStmt = conn.prepareStatement(deleteSchedulesSql)) {
-                schedStmt.setLong(1, busId);
-                schedStmt.executeUpdate();
-            }
+                // Remove schedules for this bus, and what they added to the rollup
+                ReportController.shiftSchedules(conn, "s.bus_id = ?", -1, busId);
+                try (PreparedStatement schedStmt = conn.prepareStatement(deleteSchedulesSql)) {
+                    schedStmt.setLong(1, busId);
+                    schedStmt.executeUpdate();
+                }
 
-            // Delete the bus itself
-            int busRows;
-            try (PreparedStatement busStmt = conn.prepareStatement(deleteBusSql)) {
-                busStmt.setLong(1, busId);
-                busRows = busStmt.executeUpdate();
-            }
+                // Delete the bus itself
+                int busRows;
+                try (PreparedStatement busStmt = conn.prepareStatement(deleteBusSql)) {
+                    busStmt.setLong(1, busId);
+                    busRows = busStmt.executeUpdate();
+                }
 
-            // Remove routes that became orphaned (no schedules left)
-            if (!routeIds.isEmpty()) {
-                try (PreparedStatement routeDeleteStmt = conn.prepareStatement(deleteRoutesSql)) {
-                    for (Long routeId : routeIds) {
-                        routeDeleteStmt.setLong(1, routeId);
-                        routeDeleteStmt.setLong(2, routeId);
-                        routeDeleteStmt.addBatch();
+                // Remove routes that became orphaned (no schedules left)
+                if (!routeIds.isEmpty()) {
+                    // One statement per route: a batch can't run statements that return rows
+                    try (PreparedStatement routeDeleteStmt = conn.prepareStatement(deleteRoutesSql)) {
+                        for (Long routeId : routeIds) {
+                            routeDeleteStmt.setLong(1, routeId);
+                            routeDeleteStmt.setLong(2, routeId);
+                            routeDeleteStmt.executeQuery().close();
+                        }
                     }
-                    routeDeleteStmt.executeBatch();
                 }
-            }
-
-            if (conn != null) conn.commit();
-            return busRows > 0;
+                return busRows > 0;
+            });
+            ScheduleController.getInstance().schedulesChanged();
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ignored) {}
-            }
             return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(true);
-                    conn.close();
-                } catch (SQLException ignored) {}
-            }
         }
     }
 
@@ -0,0 +1,197 @@
+package controllers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import models.Schedule;
+import models.ScheduleConflict;
+
+/**
+ * Per-bus interval index of trips, used to stop a bus being scheduled on two overlapping departures.
+ * Each bus keeps its trips ordered by departure along with its longest trip, so the trips overlapping
+ * [departure, arrival) are exactly those departing in (departure - longest, arrival): one O(log n) seek
+ * plus the matches, with no query per schedule.
+ *
+ * Buses are loaded on first use and reloaded after ttlMs to pick up other clients' writes; within that
+ * window the exclusion constraint on schedules is the backstop.
+ */
+class BusScheduleIndex {
+
+    private static final Comparator<Trip> BY_DEPARTURE =
+            Comparator.comparing((Trip t) -> t.departure).thenComparingLong(t -> t.scheduleId);
+
+    private static final class Trip {
+        final long scheduleId; // 0 for proposed trips that aren't saved yet
+        final LocalDateTime departure;
+        final LocalDateTime arrival;
+
+        Trip(long scheduleId, LocalDateTime departure, LocalDateTime arrival) {
+            this.scheduleId = scheduleId;
+            this.departure = departure;
+            this.arrival = arrival;
+        }
+    }
+
+    private static final class BusTrips {
+        final NavigableSet<Trip> trips = new TreeSet<>(BY_DEPARTURE);
+        Duration longest = Duration.ZERO;
+        long loadedAt;
+
+        void add(Trip t) {
+            trips.add(t);
+            Duration length = Duration.between(t.departure, t.arrival);
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        // Trips overlapping [departure, arrival); intervals that only touch don't count
+        List<Trip> overlapping(LocalDateTime departure, LocalDateTime arrival, long excludeId) {
+            List<Trip> found = new ArrayList<>();
+            Trip from = new Trip(Long.MIN_VALUE, departure.minus(longest), departure);
+            Trip to = new Trip(Long.MIN_VALUE, arrival, arrival);
+            for (Trip t : trips.subSet(from, false, to, false)) {
+                if (t.scheduleId != excludeId && t.arrival.isAfter(departure)) {
+                    found.add(t);
+                }
+            }
+            return found;
+        }
+    }
+
+    private final long ttlMs;
+    private final Map<Long, BusTrips> buses = new HashMap<>();
+    private final Map<Long, Trip> byId = new HashMap<>();
+    private final Map<Long, Long> busOf = new HashMap<>();
+
+    BusScheduleIndex(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    // Loads buses that are missing or older than ttlMs; force reloads them all (e.g. under a bus lock)
+    synchronized void load(Connection conn, Collection<Long> busIds, boolean force) throws SQLException {
+        long now = System.currentTimeMillis();
+        List<Long> stale = new ArrayList<>();
+        for (Long busId : busIds) {
+            BusTrips b = buses.get(busId);
+            if (force || b == null || now - b.loadedAt > ttlMs) {
+                stale.add(busId);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        String sql = "SELECT id, bus_id, departure_time, arrival_time FROM schedules WHERE bus_id = ANY(?)";
+        Map<Long, BusTrips> loaded = new HashMap<>();
+        for (Long busId : stale) {
+            BusTrips b = new BusTrips();
+            b.loadedAt = now;
+            loaded.put(busId, b);
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setArray(1, conn.createArrayOf("bigint", stale.toArray()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    loaded.get(rs.getLong(2)).add(new Trip(rs.getLong(1),
+                            rs.getObject(3, LocalDateTime.class), rs.getObject(4, LocalDateTime.class)));
+                }
+            }
+        }
+
+        for (Map.Entry<Long, BusTrips> e : loaded.entrySet()) {
+            BusTrips old = buses.put(e.getKey(), e.getValue());
+            if (old != null) {
+                for (Trip t : old.trips) {
+                    byId.remove(t.scheduleId);
+                    busOf.remove(t.scheduleId);
+                }
+            }
+            for (Trip t : e.getValue().trips) {
+                byId.put(t.scheduleId, t);
+                busOf.put(t.scheduleId, e.getKey());
+            }
+        }
+    }
+
+    /**
+     * Every conflict in the proposed list, in order: each schedule is checked against the indexed trips
+     * (ignoring its own id, for updates) and against earlier schedules in the list that had no conflict
+     * themselves. The buses must have been loaded.
+     */
+    synchronized List<ScheduleConflict> check(List<Schedule> proposed) {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        Map<Long, BusTrips> accepted = new HashMap<>();
+        Set<Long> moving = new HashSet<>(); // saved schedules this request gives a new time
+        for (Schedule s : proposed) {
+            if (s.getId() != null) {
+                moving.add(s.getId());
+            }
+        }
+        for (Schedule s : proposed) {
+            Long busId = s.getBus().getId();
+            long ownId = s.getId() != null ? s.getId() : Long.MIN_VALUE;
+            int before = conflicts.size();
+
+            BusTrips existing = buses.get(busId);
+            if (existing != null) {
+                for (Trip t : existing.overlapping(s.getDepartureTime(), s.getArrivalTime(), ownId)) {
+                    // Trips being moved by this same request are checked at their new time below
+                    if (!moving.contains(t.scheduleId)) {
+                        conflicts.add(new ScheduleConflict(s, t.scheduleId, t.departure, t.arrival, false));
+                    }
+                }
+            }
+            BusTrips batch = accepted.computeIfAbsent(busId, k -> new BusTrips());
+            for (Trip t : batch.overlapping(s.getDepartureTime(), s.getArrivalTime(), Long.MIN_VALUE)) {
+                conflicts.add(new ScheduleConflict(s, t.scheduleId == 0 ? null : t.scheduleId,
+                        t.departure, t.arrival, true));
+            }
+            if (conflicts.size() == before) {
+                batch.add(new Trip(s.getId() != null ? s.getId() : 0, s.getDepartureTime(), s.getArrivalTime()));
+            }
+        }
+        return conflicts;
+    }
+
+    // Insert or move a saved schedule
+    synchronized void put(Schedule s) {
+        remove(s.getId());
+        BusTrips b = buses.get(s.getBus().getId());
+        if (b == null) {
+            return; // not loaded yet; the first check for this bus reads it from the database
+        }
+        Trip t = new Trip(s.getId(), s.getDepartureTime(), s.getArrivalTime());
+        b.add(t);
+        byId.put(s.getId(), t);
+        busOf.put(s.getId(), s.getBus().getId());
+    }
+
+    synchronized void remove(Long scheduleId) {
+        Trip t = byId.remove(scheduleId);
+        Long busId = busOf.remove(scheduleId);
+        if (t != null && busId != null && buses.containsKey(busId)) {
+            buses.get(busId).trips.remove(t);
+        }
+    }
+
+    // For bulk changes (route or bus deletes): everything is reloaded on demand
+    synchronized void clear() {
+        buses.clear();
+        byId.clear();
+        busOf.clear();
+    }
+}
@@ -0,0 +1,107 @@
+package controllers;
+
+import db.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned city names: canonical key (trimmed, single-spaced, lower case) -> int id from the cities
+ * table. Routes reference cities by id, so route lookups and trip searches compare integers instead of
+ * LOWER(text), and "Phnom  Penh" / "phnom penh" resolve to the same city.
+ */
+class CityDictionary {
+
+    static final int UNKNOWN = -1;
+
+    private static CityDictionary instance;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    private CityDictionary() {
+        loadAll();
+    }
+
+    static synchronized CityDictionary getInstance() {
+        if (instance == null) instance = new CityDictionary();
+        return instance;
+    }
+
+    static String key(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Id of an existing city, or UNKNOWN; falls back to the database for cities added by other clients
+    int idOf(String name) {
+        String key = key(name);
+        if (key.isEmpty()) {
+            return UNKNOWN;
+        }
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        String sql = "SELECT id FROM cities WHERE name_key = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, key);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    ids.put(key, rs.getInt(1));
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return UNKNOWN;
+    }
+
+    // Id for the city, creating it if needed; runs on the caller's connection so it joins their transaction.
+    // New ids aren't cached here since that transaction may still roll back; idOf() picks them up later.
+    int intern(Connection conn, String name) throws SQLException {
+        String key = key(name);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        // DO UPDATE (a no-op) rather than DO NOTHING so RETURNING also yields the id of an existing row
+        String sql = "INSERT INTO cities (name, name_key) VALUES (?, ?) " +
+                "ON CONFLICT (name_key) DO UPDATE SET name_key = EXCLUDED.name_key RETURNING id";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, name.trim().replaceAll("\\s+", " "));
+            stmt.setString(2, key);
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    // Starts empty (and fills on demand) if the database isn't reachable yet
+    private void loadAll() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return;
+            }
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, name_key FROM cities")) {
+                while (rs.next()) {
+                    ids.put(rs.getString(2), rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
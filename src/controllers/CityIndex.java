@@ -0,0 +1,53 @@
+package controllers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+// Immutable, case-insensitively sorted and de-duplicated city names with prefix lookup
+class CityIndex {
+
+    private final String[] names;
+    private final String[] keys; // lower-cased names, same order
+
+    CityIndex(Collection<String> cities) {
+        // Keyed by the lower-cased name so the binary search below sees exactly this order
+        TreeMap<String, String> sorted = new TreeMap<>();
+        for (String city : cities) {
+            if (city != null && !city.isBlank()) {
+                sorted.putIfAbsent(city.trim().toLowerCase(Locale.ROOT), city.trim());
+            }
+        }
+        keys = sorted.keySet().toArray(new String[0]);
+        names = sorted.values().toArray(new String[0]);
+    }
+
+    List<String> all() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    // Cities starting with prefix (ignoring case), in order; limit <= 0 means all of them
+    List<String> withPrefix(String prefix, int limit) {
+        String p = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+        int lo = Arrays.binarySearch(keys, p);
+        if (lo < 0) {
+            lo = -lo - 1;
+        }
+        List<String> matches = new ArrayList<>();
+        for (int i = lo; i < keys.length && keys[i].startsWith(p); i++) {
+            if (limit > 0 && matches.size() >= limit) {
+                break;
+            }
+            matches.add(names[i]);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,285 @@
+package controllers;
+
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import models.Journey;
+import models.Schedule;
+
+/**
+ * Journey planner over a timetable snapshot, using the Connection Scan Algorithm. Every schedule is one
+ * connection (city -> city, departure -> arrival); connections are held in primitive arrays sorted by
+ * departure, so a query is a single linear pass over the departures in its time window with no database
+ * access and no per-connection allocation.
+ *
+ * Built once from a list of schedules and immutable afterwards, so it can be shared between threads;
+ * ScheduleController rebuilds it when schedules change.
+ */
+class ConnectionScanPlanner {
+
+    private static final long INF = Long.MAX_VALUE / 4;
+
+    private final Schedule[] schedules; // by departure
+    private final int[] depCity;        // dense city indexes, see cities
+    private final int[] arrCity;
+    private final long[] depTime;       // epoch seconds of the local time
+    private final long[] arrTime;
+    private final long[] price;         // cents
+    private final int[] seats;
+    private final int[] byArrival;      // connection indexes sorted by arrival
+    private final Map<Integer, Integer> cities = new HashMap<>(); // dictionary id -> dense index
+
+    // sourceCityIds/destinationCityIds are parallel to schedules; legs that don't move forward in time are dropped
+    ConnectionScanPlanner(List<Schedule> list, int[] sourceCityIds, int[] destinationCityIds) {
+        List<Integer> order = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            Schedule s = list.get(i);
+            if (s.getArrivalTime().isAfter(s.getDepartureTime()) && sourceCityIds[i] != destinationCityIds[i]) {
+                order.add(i);
+            }
+        }
+        order.sort(Comparator.comparing((Integer i) -> list.get(i).getDepartureTime())
+                .thenComparing(i -> list.get(i).getId()));
+
+        int n = order.size();
+        schedules = new Schedule[n];
+        depCity = new int[n];
+        arrCity = new int[n];
+        depTime = new long[n];
+        arrTime = new long[n];
+        price = new long[n];
+        seats = new int[n];
+        for (int c = 0; c < n; c++) {
+            int i = order.get(c);
+            Schedule s = list.get(i);
+            schedules[c] = s;
+            depCity[c] = cities.computeIfAbsent(sourceCityIds[i], k -> cities.size());
+            arrCity[c] = cities.computeIfAbsent(destinationCityIds[i], k -> cities.size());
+            depTime[c] = seconds(s.getDepartureTime());
+            arrTime[c] = seconds(s.getArrivalTime());
+            price[c] = s.getTicketPrice().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+            seats[c] = s.getAvailableSeats();
+        }
+
+        Integer[] sorted = new Integer[n];
+        for (int c = 0; c < n; c++) {
+            sorted[c] = c;
+        }
+        Arrays.sort(sorted, Comparator.comparingLong((Integer c) -> arrTime[c]));
+        byArrival = new int[n];
+        for (int c = 0; c < n; c++) {
+            byArrival[c] = sorted[c];
+        }
+    }
+
+    int size() { return schedules.length; }
+
+    LocalDateTime getFirstDeparture() {
+        return schedules.length == 0 ? null : schedules[0].getDepartureTime();
+    }
+
+    /**
+     * Itinerary that reaches toCityId first. The first leg departs in [departAfter, departBefore); later
+     * legs leave at least minLayoverSeconds after the previous arrival; nothing arrives after
+     * latestArrival. Among equally early arrivals the one with fewer legs wins. Null if there is none.
+     */
+    Journey earliestArrival(int fromCityId, int toCityId, LocalDateTime departAfter, LocalDateTime departBefore,
+            LocalDateTime latestArrival, int maxTransfers, long minLayoverSeconds) {
+        Integer from = cities.get(fromCityId);
+        Integer to = cities.get(toCityId);
+        if (from == null || to == null || from.equals(to)) {
+            return null;
+        }
+        int legs = maxTransfers + 1;
+        int n = cities.size();
+        long after = seconds(departAfter);
+        long before = seconds(departBefore);
+        long latest = seconds(latestArrival);
+
+        // arrival[k * n + city]: earliest arrival at city using exactly k legs; 0 legs = at the origin
+        long[] arrival = new long[(legs + 1) * n];
+        int[] parent = new int[(legs + 1) * n];
+        Arrays.fill(arrival, INF);
+        long best = INF;
+
+        for (int c = firstDeparture(after); c < depTime.length; c++) {
+            long t = depTime[c];
+            if (t > best || t > latest) {
+                break; // every later connection departs after we could already have arrived
+            }
+            if (seats[c] <= 0 || arrTime[c] > latest) {
+                continue;
+            }
+            int a = arrCity[c];
+            for (int k = 1; k <= legs; k++) {
+                boolean reachable = k == 1
+                        ? depCity[c] == from && t < before
+                        : arrival[(k - 1) * n + depCity[c]] + minLayoverSeconds <= t;
+                if (reachable && arrTime[c] < arrival[k * n + a]) {
+                    arrival[k * n + a] = arrTime[c];
+                    parent[k * n + a] = c;
+                    if (a == to && arrTime[c] < best) {
+                        best = arrTime[c];
+                    }
+                }
+            }
+        }
+        if (best == INF) {
+            return null;
+        }
+
+        int k = 1;
+        while (arrival[k * n + to] != best) {
+            k++;
+        }
+        // A later scan can't lower arrival[k - 1] below a departure we already used, so parents are stable
+        List<Schedule> path = new ArrayList<>(k);
+        for (int city = to; k > 0; k--) {
+            int c = parent[k * n + city];
+            path.add(schedules[c]);
+            city = depCity[c];
+        }
+        Collections.reverse(path);
+        return new Journey(path);
+    }
+
+    /**
+     * Lowest total fare under the same constraints as earliestArrival; ties go to the earlier arrival, then
+     * to fewer legs. Connections become usable as a transfer once their arrival plus the layover has passed,
+     * which a second pointer over the arrival-sorted order tracks.
+     */
+    Journey cheapest(int fromCityId, int toCityId, LocalDateTime departAfter, LocalDateTime departBefore,
+            LocalDateTime latestArrival, int maxTransfers, long minLayoverSeconds) {
+        Integer from = cities.get(fromCityId);
+        Integer to = cities.get(toCityId);
+        if (from == null || to == null || from.equals(to)) {
+            return null;
+        }
+        int legs = maxTransfers + 1;
+        int n = cities.size();
+        long after = seconds(departAfter);
+        long before = seconds(departBefore);
+        long latest = seconds(latestArrival);
+
+        int start = firstDeparture(after);
+        int end = firstDeparture(latest + 1);
+        int window = end - start;
+
+        // cost[(c - start) * legs + (k - 1)]: cheapest fare ending with connection c as leg k
+        long[] cost = new long[window * legs];
+        int[] parent = new int[window * legs];
+        Arrays.fill(cost, INF);
+        // cheapest fare that has arrived at a city after k legs and is ready to transfer
+        long[] ready = new long[(legs + 1) * n];
+        int[] readyVia = new int[(legs + 1) * n];
+        Arrays.fill(ready, INF);
+
+        int p = firstArrival(after);
+        for (int c = start; c < end; c++) {
+            long t = depTime[c];
+            for (; p < byArrival.length && arrTime[byArrival[p]] + minLayoverSeconds <= t; p++) {
+                int done = byArrival[p];
+                if (done < start || done >= end) {
+                    continue;
+                }
+                int a = arrCity[done];
+                for (int k = 1; k < legs; k++) {
+                    long v = cost[(done - start) * legs + k - 1];
+                    if (v < ready[k * n + a]) {
+                        ready[k * n + a] = v;
+                        readyVia[k * n + a] = done;
+                    }
+                }
+            }
+            if (seats[c] <= 0 || arrTime[c] > latest) {
+                continue;
+            }
+            int row = (c - start) * legs;
+            if (depCity[c] == from && t < before) {
+                cost[row] = price[c];
+            }
+            for (int k = 2; k <= legs; k++) {
+                long v = ready[(k - 1) * n + depCity[c]];
+                if (v < INF) {
+                    cost[row + k - 1] = v + price[c];
+                    parent[row + k - 1] = readyVia[(k - 1) * n + depCity[c]];
+                }
+            }
+        }
+
+        int bestConn = -1;
+        int bestLegs = 0;
+        long bestCost = INF;
+        for (int c = start; c < end; c++) {
+            if (arrCity[c] != to) {
+                continue;
+            }
+            for (int k = 1; k <= legs; k++) {
+                long v = cost[(c - start) * legs + k - 1];
+                if (v == INF) {
+                    continue;
+                }
+                boolean better = v < bestCost
+                        || v == bestCost && (arrTime[c] < arrTime[bestConn]
+                                || arrTime[c] == arrTime[bestConn] && k < bestLegs);
+                if (better) {
+                    bestCost = v;
+                    bestConn = c;
+                    bestLegs = k;
+                }
+            }
+        }
+        if (bestConn < 0) {
+            return null;
+        }
+
+        List<Schedule> path = new ArrayList<>(bestLegs);
+        for (int c = bestConn, k = bestLegs; k > 0; k--) {
+            path.add(schedules[c]);
+            c = parent[(c - start) * legs + k - 1];
+        }
+        Collections.reverse(path);
+        return new Journey(path);
+    }
+
+    // First connection departing at or after t
+    private int firstDeparture(long t) {
+        int lo = 0;
+        int hi = depTime.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (depTime[mid] < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First position in byArrival arriving at or after t
+    private int firstArrival(long t) {
+        int lo = 0;
+        int hi = byArrival.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (arrTime[byArrival[mid]] < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static long seconds(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,56 @@
+package controllers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Small thread-safe LRU map; the least recently used entry is dropped once maxEntries is exceeded
+class LruCache<K, V> {
+    private final Map<K, V> map;
+    private long evictions;
+
+    LruCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    // onEvict runs (under the cache lock) for each entry dropped to make room
+    LruCache(int maxEntries, BiConsumer<K, V> onEvict) {
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                evictions++;
+                if (onEvict != null) {
+                    onEvict.accept(eldest.getKey(), eldest.getValue());
+                }
+                return true;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    synchronized V remove(K key) {
+        return map.remove(key);
+    }
+
+    synchronized void clear() {
+        map.clear();
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+}
@@ -0,0 +1,248 @@
+package controllers;
+
+import db.*;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import models.RouteDayStats;
+
+/**
+ * Occupancy and revenue per route per departure day, read from the route_day_stats rollup so a dashboard
+ * query costs an index range scan however many bookings there are.
+ *
+ * Writes never touch the rollup rows themselves: each booking, confirmation, cancellation and schedule
+ * change appends its delta to route_day_stats_log in the same transaction (usually the same statement),
+ * using the SQL built here. Appends don't contend with each other, so bookings on one route and day don't
+ * queue behind a shared counter row. A background task folds the log into route_day_stats, and reads add
+ * any rows it hasn't folded yet, so reports are exact.
+ *
+ * seats_sold and revenue count CONFIRMED bookings, cancellations counts CANCELLED ones and seats_offered
+ * is the capacity of the buses running that day. rebuildRollups() recomputes the lot, e.g. after rows were
+ * edited by hand; it counts archived trips at their bus's current capacity.
+ */
+public class ReportController {
+
+    private static ReportController instance;
+
+    private static final String LOG_INSERT =
+            "INSERT INTO route_day_stats_log (route_id, day, seats_offered, seats_sold, revenue, cancellations) ";
+
+    // One batch of the log, summed per route/day and added to the rollup; deleting and adding in one
+    // statement means a row is folded exactly once
+    private static final String FOLD_SQL = "WITH batch AS (" +
+            "    DELETE FROM route_day_stats_log WHERE id IN (SELECT id FROM route_day_stats_log ORDER BY id LIMIT ?) " +
+            "    RETURNING route_id, day, seats_offered, seats_sold, revenue, cancellations" +
+            ") INSERT INTO route_day_stats (route_id, day, seats_offered, seats_sold, revenue, cancellations) " +
+            "SELECT route_id, day, SUM(seats_offered), SUM(seats_sold), SUM(revenue), SUM(cancellations) " +
+            "FROM batch GROUP BY route_id, day ORDER BY route_id, day " +
+            "ON CONFLICT (route_id, day) DO UPDATE SET " +
+            "seats_offered = route_day_stats.seats_offered + EXCLUDED.seats_offered, " +
+            "seats_sold = route_day_stats.seats_sold + EXCLUDED.seats_sold, " +
+            "revenue = route_day_stats.revenue + EXCLUDED.revenue, " +
+            "cancellations = route_day_stats.cancellations + EXCLUDED.cancellations";
+
+    private static final int FOLD_BATCH = Integer.getInteger("report.foldBatch", 10_000);
+
+    // Folded rows plus the log rows not folded yet, for the same filter (which is applied to both)
+    private static String statsSelect(String filter) {
+        String columns = "route_id, day, seats_offered, seats_sold, revenue, cancellations";
+        return "SELECT st.route_id, r.source_city, r.destination_city, st.day, " +
+                "SUM(st.seats_offered) AS seats_offered, SUM(st.seats_sold) AS seats_sold, " +
+                "SUM(st.revenue) AS revenue, SUM(st.cancellations) AS cancellations " +
+                "FROM (SELECT " + columns + " FROM route_day_stats WHERE " + filter + " " +
+                "    UNION ALL SELECT " + columns + " FROM route_day_stats_log WHERE " + filter + ") st " +
+                "LEFT JOIN routes r ON r.id = st.route_id " +
+                "GROUP BY st.route_id, r.source_city, r.destination_city, st.day";
+    }
+
+    private ScheduledExecutorService folder;
+
+    private ReportController() {
+    }
+
+    public static ReportController getInstance() {
+        if (instance == null) {
+            instance = new ReportController();
+        }
+        return instance;
+    }
+
+    // One route, one row per departure day in [from, to] that had a trip
+    public List<RouteDayStats> getRouteStats(Long routeId, LocalDate from, LocalDate to) {
+        return fetch(statsSelect("route_id = ? AND day BETWEEN ? AND ?") + " ORDER BY st.day",
+                routeId, from, to, routeId, from, to);
+    }
+
+    // Every route, by day then route
+    public List<RouteDayStats> getDailyStats(LocalDate from, LocalDate to) {
+        return fetch(statsSelect("day BETWEEN ? AND ?") + " ORDER BY st.day, st.route_id", from, to, from, to);
+    }
+
+    // Folds the change log every intervalMs on a daemon thread
+    public synchronized void startFolding(long intervalMs) {
+        if (folder != null) {
+            return;
+        }
+        folder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup-folder");
+            t.setDaemon(true);
+            return t;
+        });
+        folder.scheduleWithFixedDelay(this::fold, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (folder != null) {
+            folder.shutdownNow();
+            folder = null;
+        }
+    }
+
+    /**
+     * Moves up to report.foldBatch log rows into route_day_stats in one transaction; a larger backlog is
+     * picked up by the next run. Only one client folds at a time; returns false if another one was, or on
+     * failure.
+     */
+    public boolean fold() {
+        try {
+            return TransactionExecutor.getInstance().inTransaction(conn -> {
+                try (Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery(
+                                "SELECT pg_try_advisory_xact_lock(hashtext('route-day-stats-fold'))")) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return false;
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(FOLD_SQL)) {
+                    stmt.setInt(1, FOLD_BATCH);
+                    stmt.executeUpdate();
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Recomputes the rollup from the live and archived tables in one transaction and empties the log;
+     * returns the number of route/day rows, or -1 on failure (the old rows are kept). Writers that append
+     * to the log wait for it, readers see the old rows until it commits.
+     */
+    public int rebuildRollups() {
+        try {
+            int rows = TransactionExecutor.getInstance().inTransaction(conn -> {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LOCK TABLE route_day_stats, route_day_stats_log IN EXCLUSIVE MODE");
+                    stmt.executeUpdate("DELETE FROM route_day_stats_log");
+                    stmt.executeUpdate("DELETE FROM route_day_stats");
+                    return stmt.executeUpdate(DatabaseSchema.ROUTE_DAY_STATS_FILL);
+                }
+            });
+            System.out.println("Rollups rebuilt: " + rows + " route/day row(s).");
+            return rows;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private List<RouteDayStats> fetch(String sql, Object... params) {
+        List<RouteDayStats> stats = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new RouteDayStats(rs.getLong("route_id"), rs.getString("source_city"),
+                            rs.getString("destination_city"), rs.getObject("day", LocalDate.class),
+                            rs.getInt("seats_offered"), rs.getInt("seats_sold"), rs.getBigDecimal("revenue"),
+                            rs.getInt("cancellations")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return stats;
+    }
+
+    // --- Change log, appended to inside the caller's statement or transaction ---
+
+    /**
+     * INSERT that logs booking changes. changes is a query over live schedules returning schedule_id, sold,
+     * revenue and cancelled per row (negative to take something away); it can name a CTE of the enclosing
+     * statement.
+     */
+    static String bookingRollup(String changes) {
+        return LOG_INSERT +
+                "SELECT s.route_id, s.departure_time::date, 0, SUM(c.sold), SUM(c.revenue), SUM(c.cancelled) " +
+                "FROM (" + changes + ") c JOIN schedules s ON s.id = c.schedule_id " +
+                "GROUP BY s.route_id, s.departure_time::date";
+    }
+
+    /**
+     * INSERT that logs adding (sign 1) or removing (sign -1) everything the live schedules matching filter
+     * contribute: their capacity and their bookings. Run with -1 before a schedule is moved or deleted and
+     * with 1 after it is created or moved. filter is a condition on schedules aliased s.
+     */
+    static String scheduleRollup(String filter, int sign) {
+        return LOG_INSERT +
+                "SELECT s.route_id, s.departure_time::date, " + sign + " * SUM(COALESCE(bu.total_seats, 0)), " +
+                sign + " * SUM(b.sold), " + sign + " * SUM(b.revenue), " + sign + " * SUM(b.cancelled) " +
+                "FROM schedules s LEFT JOIN buses bu ON bu.id = s.bus_id " +
+                "CROSS JOIN LATERAL (SELECT COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS sold, " +
+                "    COALESCE(SUM(total_amount) FILTER (WHERE status = 'CONFIRMED'), 0) AS revenue, " +
+                "    COUNT(*) FILTER (WHERE status = 'CANCELLED') AS cancelled " +
+                "    FROM bookings WHERE schedule_id = s.id) b " +
+                "WHERE " + filter + " GROUP BY s.route_id, s.departure_time::date";
+    }
+
+    // Capacity of schedules just inserted by the same statement, which it can't see in schedules yet;
+    // inserted is a CTE returning bus_id, route_id and departure_time
+    static String offeredRollup(String inserted) {
+        return LOG_INSERT +
+                "SELECT i.route_id, i.departure_time::date, bu.total_seats, 0, 0, 0 " +
+                "FROM " + inserted + " i JOIN buses bu ON bu.id = i.bus_id";
+    }
+
+    // CTEs that delete the folded and pending rollup rows of deleted routes; deletedRouteIds is a query,
+    // usually over a DELETE ... RETURNING id on routes in the same statement
+    static String dropRouteStats(String deletedRouteIds) {
+        return "dropped_stats AS (DELETE FROM route_day_stats WHERE route_id IN (" + deletedRouteIds + ")), " +
+                "dropped_log AS (DELETE FROM route_day_stats_log WHERE route_id IN (" + deletedRouteIds + "))";
+    }
+
+    // Seats sold straight to CONFIRMED on one schedule
+    static void recordSales(Connection conn, Long scheduleId, int seats, BigDecimal revenue) throws SQLException {
+        String sql = bookingRollup("SELECT CAST(? AS BIGINT) AS schedule_id, CAST(? AS INT) AS sold, " +
+                "CAST(? AS NUMERIC) AS revenue, 0 AS cancelled");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, scheduleId);
+            stmt.setInt(2, seats);
+            stmt.setBigDecimal(3, revenue);
+            stmt.executeUpdate();
+        }
+    }
+
+    static void shiftSchedules(Connection conn, String filter, int sign, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(scheduleRollup(filter, sign))) {
+            for (int i = 0; i < params.length; i++) {
+                if (params[i] instanceof Long[]) {
+                    stmt.setArray(i + 1, conn.createArrayOf("bigint", (Long[]) params[i]));
+                } else {
+                    stmt.setObject(i + 1, params[i]);
+                }
+            }
+            stmt.executeUpdate();
+        }
+    }
+}
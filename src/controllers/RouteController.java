@@ -13,6 +13,12 @@ public class RouteController {
 
     private static RouteController instance;
 
+    // Distinct city names from all routes; rebuilt lazily after any route change here, and after the TTL
+    // for changes made by other clients
+    private volatile CityIndex cities;
+    private volatile long citiesLoadedAt;
+    private final long citiesTtlMs = Long.getLong("route.cityCacheTtlMs", 300_000L);
+
     private RouteController() {}
 
     public static RouteController getInstance() {
@@ -27,17 +33,23 @@ public class RouteController {
             return false;
         }
 
-        String sql = "INSERT INTO routes (source_city, destination_city, distance_km, estimated_duration) VALUES (?, ?, ?, ?)";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, route.getSourceCity());
-            stmt.setString(2, route.getDestinationCity());
-            stmt.setDouble(3, route.getDistanceKm());
-            stmt.setString(4, route.getEstimatedDuration());
-
-            stmt.executeUpdate();
+        String sql = "INSERT INTO routes (source_city, destination_city, distance_km, estimated_duration, " +
+                "source_city_id, destination_city_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try {
+            TransactionExecutor.getInstance().inTransaction(conn -> {
+                CityDictionary dictionary = CityDictionary.getInstance();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, route.getSourceCity());
+                    stmt.setString(2, route.getDestinationCity());
+                    stmt.setDouble(3, route.getDistanceKm());
+                    stmt.setString(4, route.getEstimatedDuration());
+                    stmt.setInt(5, dictionary.intern(conn, route.getSourceCity()));
+                    stmt.setInt(6, dictionary.intern(conn, route.getDestinationCity()));
+                    return stmt.executeUpdate();
+                }
+            });
+            invalidateCities();
             System.out.println("Route added: " + route.getSourceCity() + " -> " + route.getDestinationCity());
             return true;
 
@@ -51,9 +63,17 @@ public class RouteController {
         return routeExists(source, destination, null);
     }
 
+    // Compares dictionary ids, so spelling variants in case or spacing count as the same route
     public boolean routeExists(String source, String destination, Long excludeRouteId) {
+        CityDictionary dictionary = CityDictionary.getInstance();
+        int sourceId = dictionary.idOf(source);
+        int destinationId = dictionary.idOf(destination);
+        if (sourceId == CityDictionary.UNKNOWN || destinationId == CityDictionary.UNKNOWN) {
+            return false; // A city nobody has used yet can't be on an existing route
+        }
+
         StringBuilder sql = new StringBuilder(
-                "SELECT 1 FROM routes WHERE LOWER(source_city) = LOWER(?) AND LOWER(destination_city) = LOWER(?)");
+                "SELECT 1 FROM routes WHERE source_city_id = ? AND destination_city_id = ?");
         if (excludeRouteId != null) {
             sql.append(" AND id <> ?");
         }
@@ -62,8 +82,8 @@ public class RouteController {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            stmt.setString(1, source);
-            stmt.setString(2, destination);
+            stmt.setInt(1, sourceId);
+            stmt.setInt(2, destinationId);
             if (excludeRouteId != null) {
                 stmt.setLong(3, excludeRouteId);
             }
@@ -130,18 +150,25 @@ public class RouteController {
             return false;
         }
 
-        String sql = "UPDATE routes SET source_city = ?, destination_city = ?, distance_km = ?, estimated_duration = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, route.getSourceCity());
-            stmt.setString(2, route.getDestinationCity());
-            stmt.setDouble(3, route.getDistanceKm());
-            stmt.setString(4, route.getEstimatedDuration());
-            stmt.setLong(5, route.getId());
-
-            int rowsUpdated = stmt.executeUpdate();
+        String sql = "UPDATE routes SET source_city = ?, destination_city = ?, distance_km = ?, estimated_duration = ?, " +
+                "source_city_id = ?, destination_city_id = ? WHERE id = ?";
+
+        try {
+            int rowsUpdated = TransactionExecutor.getInstance().inTransaction(conn -> {
+                CityDictionary dictionary = CityDictionary.getInstance();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, route.getSourceCity());
+                    stmt.setString(2, route.getDestinationCity());
+                    stmt.setDouble(3, route.getDistanceKm());
+                    stmt.setString(4, route.getEstimatedDuration());
+                    stmt.setInt(5, dictionary.intern(conn, route.getSourceCity()));
+                    stmt.setInt(6, dictionary.intern(conn, route.getDestinationCity()));
+                    stmt.setLong(7, route.getId());
+                    return stmt.executeUpdate();
+                }
+            });
+            invalidateCities();
+            ScheduleController.getInstance().schedulesChanged(); // cities may have changed
             System.out.println("Route updated: " + route.getSourceCity() + " -> " + route.getDestinationCity());
             return rowsUpdated > 0;
         } catch (SQLException e) {
@@ -150,14 +177,20 @@ public class RouteController {
         }
     }
 
+    // Also drops the route's rollup rows, including days that only archived trips still account for
     public boolean deleteRoute(Long routeId) {
-        String sql = "DELETE FROM routes WHERE id = ?";
+        String sql = "WITH gone AS (DELETE FROM routes WHERE id = ? RETURNING id), " +
+                ReportController.dropRouteStats("SELECT id FROM gone") + " SELECT COUNT(*) FROM gone";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, routeId);
-            int rowsDeleted = stmt.executeUpdate();
+            int rowsDeleted;
+            try (ResultSet rs = stmt.executeQuery()) {
+                rowsDeleted = rs.next() ? rs.getInt(1) : 0;
+            }
+            invalidateCities();
             System.out.println("Route deleted with ID: " + routeId);
             return rowsDeleted > 0;
         } catch (SQLException e) {
@@ -165,4 +198,54 @@ public class RouteController {
             return false;
         }
     }
+
+    // Sorted, case-insensitively distinct cities served by any route
+    public List<String> getCities() {
+        CityIndex index = loadCities();
+        return index != null ? index.all() : new ArrayList<>();
+    }
+
+    // Type-ahead: cities starting with prefix, ignoring case
+    public List<String> findCities(String prefix, int limit) {
+        CityIndex index = loadCities();
+        return index != null ? index.withPrefix(prefix, limit) : new ArrayList<>();
+    }
+
+    // Same as findCities but only from the cities already in memory, never the database, so it is safe on
+    // the EDT; empty until getCities() or findCities() has loaded them
+    public List<String> findLoadedCities(String prefix, int limit) {
+        CityIndex index = cities;
+        return index != null ? index.withPrefix(prefix, limit) : new ArrayList<>();
+    }
+
+    public void invalidateCities() {
+        cities = null;
+    }
+
+    private CityIndex loadCities() {
+        CityIndex index = cities;
+        if (index != null && System.currentTimeMillis() - citiesLoadedAt < citiesTtlMs) {
+            return index;
+        }
+        // Canonical dictionary spelling of every city on a route; doesn't grow with the number of schedules
+        String sql = "SELECT name FROM cities WHERE id IN " +
+                "(SELECT source_city_id FROM routes UNION SELECT destination_city_id FROM routes)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            List<String> names = new ArrayList<>();
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+            index = new CityIndex(names);
+            citiesLoadedAt = System.currentTimeMillis();
+            cities = index;
+            return index;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 }
@@ -0,0 +1,224 @@
+package controllers;
+
+import db.IdentityMap;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import models.Booking;
+import models.Bus;
+import models.Route;
+import models.Schedule;
+import models.User;
+
+/**
+ * Cost of mapping a 1M-row getAllBookings result, without a database:
+ *
+ *   java -Xmx3g -cp bin controllers.RowMappingBench <mode> [rows]
+ *
+ * Modes (run one per JVM so they don't share heap or JIT state):
+ *   scan    reads every column by index and builds nothing: the synthetic ResultSet's own cost
+ *   legacy  the mapping loop getAllBookings had before BookingRowMapper: ~20 lookups by label per row,
+ *           Timestamp conversions and fresh User/Bus/Route/Schedule objects per row
+ *   fresh   BookingRowMapper with its identity map cleared before every row: indexes resolved once but
+ *           nothing shared, i.e. the mapper as it was before the identity map
+ *   shared  BookingRowMapper as getAllBookings uses it, one identity map for the whole query
+ *
+ * Prints CPU time and allocated bytes per row for the mapping loop (after a warm-up pass) and the heap the
+ * mapped bookings retain after a full GC. The rows come from a dynamic proxy with the columns of
+ * BOOKING_SELECT, 2,000 schedules on 50 buses and 100 routes, and 100,000 customers. It creates a new
+ * String/BigDecimal/time value per getter call, as the driver does, but doesn't decode wire data, so
+ * subtract the scan figures to compare the mappers themselves; driver and network costs aren't included.
+ */
+public class RowMappingBench {
+
+    static final String[] COLUMNS = {
+            "id", "seat_number", "status", "total_amount", "booking_date",
+            "schedule_id", "departure_time", "arrival_time", "ticket_price", "available_seats",
+            "bus_id", "bus_number", "total_seats", "type", "is_operational",
+            "route_id", "source_city", "destination_city", "distance_km", "estimated_duration",
+            "user_id", "full_name", "role"};
+
+    static final int SCHEDULES = 2_000;
+    static final int BUSES = 50;
+    static final int ROUTES = 100;
+    static final int CUSTOMERS = 100_000;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "shared";
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        map(mode, syntheticBookings(Math.min(rows, 200_000))); // warm-up, discarded
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        ResultSet rs = syntheticBookings(rows);
+        long cpu = threads.getCurrentThreadCpuTime();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        List<Object> mapped = map(mode, rs);
+        cpu = threads.getCurrentThreadCpuTime() - cpu;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long retained = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf("%-6s rows=%d cpu=%.0f ns/row alloc=%.0f B/row retained=%.1f MB%n", mode, mapped.size(),
+                (double) cpu / rows, (double) allocated / rows, retained / 1048576.0);
+    }
+
+    private static List<Object> map(String mode, ResultSet rs) throws SQLException {
+        List<Object> out = new ArrayList<>();
+        switch (mode) {
+            case "scan":
+                while (rs.next()) {
+                    for (int i = 1; i <= COLUMNS.length; i++) {
+                        rs.getObject(i);
+                    }
+                }
+                break;
+            case "legacy":
+                while (rs.next()) {
+                    out.add(mapLegacy(rs));
+                }
+                break;
+            case "fresh":
+                IdentityMap perRow = new IdentityMap();
+                BookingRowMapper unshared = new BookingRowMapper(rs, perRow);
+                while (rs.next()) {
+                    perRow.clear();
+                    out.add(unshared.map(rs));
+                }
+                break;
+            case "shared":
+                BookingRowMapper mapper = new BookingRowMapper(rs);
+                while (rs.next()) {
+                    out.add(mapper.map(rs));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("mode: scan, legacy, fresh or shared");
+        }
+        return out;
+    }
+
+    // The per-row mapping getAllBookings did before BookingRowMapper existed (it also read u.password, which
+    // BOOKING_SELECT no longer returns)
+    private static Booking mapLegacy(ResultSet rs) throws SQLException {
+        User user = new User(rs.getLong("user_id"), rs.getString("full_name"), null, rs.getString("role"));
+        Bus bus = new Bus(rs.getLong("bus_id"), rs.getString("bus_number"), rs.getInt("total_seats"),
+                rs.getString("type"));
+        Route route = new Route(rs.getLong("route_id"), rs.getString("source_city"),
+                rs.getString("destination_city"), rs.getDouble("distance_km"), rs.getString("estimated_duration"));
+        Schedule schedule = new Schedule(rs.getLong("schedule_id"), bus, route,
+                rs.getTimestamp("departure_time").toLocalDateTime(),
+                rs.getTimestamp("arrival_time").toLocalDateTime(), rs.getBigDecimal("ticket_price"));
+        Booking booking = new Booking(rs.getLong("id"), user, schedule, rs.getString("seat_number"),
+                rs.getBigDecimal("total_amount"));
+        booking.setStatus(rs.getString("status"));
+        booking.setBookingDate(rs.getTimestamp("booking_date").toLocalDateTime());
+        return booking;
+    }
+
+    // Forward-only ResultSet over generated rows; labels resolve through a map, like the driver's findColumn
+    static ResultSet syntheticBookings(int rows) {
+        Map<String, Integer> labels = new HashMap<>();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            labels.put(COLUMNS[i], i + 1);
+        }
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(RowMappingBench.class.getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getColumnCount")) {
+                        return COLUMNS.length;
+                    }
+                    return COLUMNS[(Integer) args[0] - 1]; // getColumnLabel / getColumnName
+                });
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 8, 0);
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(RowMappingBench.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++row[0] < rows;
+                        case "getMetaData":
+                            return meta;
+                        case "wasNull":
+                            return false;
+                        case "findColumn":
+                            return labels.get(((String) args[0]).toLowerCase());
+                        case "close":
+                            return null;
+                        default:
+                            break;
+                    }
+                    int column = args[0] instanceof String
+                            ? labels.get(((String) args[0]).toLowerCase()) : (Integer) args[0];
+                    Object value = value(COLUMNS[column - 1], row[0], start);
+                    switch (method.getName()) {
+                        case "getLong":
+                            return ((Number) value).longValue();
+                        case "getInt":
+                            return ((Number) value).intValue();
+                        case "getDouble":
+                            return ((Number) value).doubleValue();
+                        case "getTimestamp":
+                            return Timestamp.valueOf((LocalDateTime) value);
+                        default:
+                            return value; // getString, getBigDecimal, getBoolean, getObject
+                    }
+                });
+    }
+
+    private static Object value(String column, int row, LocalDateTime start) {
+        long schedule = row % SCHEDULES;
+        switch (column) {
+            case "id":
+                return (long) row;
+            case "schedule_id":
+                return schedule;
+            case "bus_id":
+                return schedule % BUSES;
+            case "route_id":
+                return schedule % ROUTES;
+            case "user_id":
+                return (long) (row % CUSTOMERS);
+            case "seat_number":
+                return String.valueOf(row % 40 + 1);
+            case "status":
+                return new String("CONFIRMED");
+            case "total_amount":
+            case "ticket_price":
+                return new BigDecimal("12.50");
+            case "booking_date":
+                return start.plusMinutes(row);
+            case "departure_time":
+                return start.plusHours(schedule);
+            case "arrival_time":
+                return start.plusHours(schedule + 4);
+            case "available_seats":
+            case "total_seats":
+                return 40;
+            case "is_operational":
+                return true;
+            case "distance_km":
+                return 100.0;
+            case "full_name":
+                return "Customer " + row % CUSTOMERS;
+            case "role":
+                return new String("CUSTOMER");
+            default:
+                return column + " " + schedule; // bus_number, cities, duration
+        }
+    }
+}
@@ -2,15 +2,88 @@ package controllers;
 
 import db.*;
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import models.*;
 
 public class ScheduleController {
 
     private static ScheduleController instance;
 
+    // Upper bound on rows a customer search returns
+    private static final int SEARCH_LIMIT = Integer.getInteger("search.maxResults", 200);
+
+    // Optional in-memory search index; null when searches always go to the database
+    private final TripSearchIndex searchIndex;
+
+    // Journey planner defaults
+    private static final int MAX_TRANSFERS = Integer.getInteger("journey.maxTransfers", 2);
+    private static final int MIN_LAYOVER_MINUTES = Integer.getInteger("journey.minLayoverMinutes", 30);
+    private static final long MAX_JOURNEY_HOURS = Long.getLong("journey.maxHours", 48L);
+    // The planner's timetable covers journeys leaving within horizonDays days (today included), plus maxHours
+    // for them to arrive. It is rebuilt in the background every refreshMs and when schedules change; seat
+    // counts in it may lag by up to refreshMs. Later dates aren't planned at all.
+    private static final long PLANNER_HORIZON_DAYS = Long.getLong("journey.horizonDays", 7L);
+    private static final long PLANNER_REFRESH_MS = Long.getLong("journey.refreshMs", 60_000L);
+
+    private static final String PLANNER_SQL = "SELECT s.*, b.bus_number, b.total_seats, b.type, b.is_operational, " +
+            "r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
+            "r.source_city_id, r.destination_city_id " +
+            "FROM schedules s " +
+            "JOIN buses b ON s.bus_id = b.id " +
+            "JOIN routes r ON s.route_id = r.id " +
+            "WHERE s.departure_time >= ? AND s.departure_time < ? " +
+            "AND r.source_city_id IS NOT NULL AND r.destination_city_id IS NOT NULL";
+
+    // Results of searchTrips(from, to, date); null when search.cache.ttlMs is 0
+    private final SearchResultCache searchCache;
+
+    // Per-bus trips for double-booking checks
+    private final BusScheduleIndex busTrips = new BusScheduleIndex(Long.getLong("schedule.busIndexTtlMs", 60_000L));
+
+    // Timetable snapshot and the window it covers, swapped in together by rebuildPlanner()
+    private static final class PlannerSnapshot {
+        final ConnectionScanPlanner planner;
+        final LocalDateTime from;
+        final LocalDateTime until;
+
+        PlannerSnapshot(ConnectionScanPlanner planner, LocalDateTime from, LocalDateTime until) {
+            this.planner = planner;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
+    private volatile PlannerSnapshot plannerSnapshot;
+    private final ScheduledExecutorService plannerRefresher;
+    private final AtomicBoolean plannerRebuildQueued = new AtomicBoolean();
+
     private ScheduleController() {
+        searchIndex = Boolean.getBoolean("search.index")
+                ? new TripSearchIndex(Long.getLong("search.index.refreshMs", 10_000L),
+                        Long.getLong("search.index.maxStalenessMs", 30_000L))
+                : null;
+        long cacheTtlMs = Long.getLong("search.cache.ttlMs", 5_000L);
+        searchCache = cacheTtlMs > 0
+                ? new SearchResultCache(Integer.getInteger("search.cache.maxEntries", 1_000), cacheTtlMs)
+                : null;
+        plannerRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journey-planner");
+            t.setDaemon(true);
+            return t;
+        });
+        plannerRefresher.scheduleWithFixedDelay(this::rebuildPlanner, 0, PLANNER_REFRESH_MS, TimeUnit.MILLISECONDS);
     };
 
     public static ScheduleController getInstance() {
@@ -19,8 +92,17 @@ public class ScheduleController {
         return instance;
     }
 
-    public void addSchedule(Schedule schedule) {
-        String sql = "INSERT INTO schedules (bus_id, route_id, departure_time, arrival_time, ticket_price, available_seats) VALUES (?, ?, ?, ?, ?, ?)";
+    // Returns false without writing if the bus is already on another trip at that time (see findConflicts)
+    public boolean addSchedule(Schedule schedule) {
+        if (!conflictFree(schedule)) {
+            return false;
+        }
+        // The new row isn't visible to the rest of the statement, so its capacity is rolled up from RETURNING
+        String sql = "WITH ins AS (" +
+                "    INSERT INTO schedules (bus_id, route_id, departure_time, arrival_time, ticket_price, available_seats) " +
+                "    VALUES (?, ?, ?, ?, ?, ?) RETURNING id, bus_id, route_id, departure_time" +
+                "), offered AS (" + ReportController.offeredRollup("ins") + ") " +
+                "SELECT ins.id, r.source_city_id, r.destination_city_id FROM ins JOIN routes r ON r.id = ins.route_id";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -32,11 +114,161 @@ public class ScheduleController {
             stmt.setBigDecimal(5, schedule.getTicketPrice());
             stmt.setInt(6, schedule.getAvailableSeats());
 
-            stmt.executeUpdate();
+            try (ResultSet keys = stmt.executeQuery()) {
+                if (keys.next()) {
+                    schedule.setId(keys.getLong(1));
+                    if (searchIndex != null) {
+                        searchIndex.put(schedule, keys.getInt(2), keys.getInt(3));
+                    }
+                }
+            }
+            busTrips.put(schedule);
+            plannerChanged();
+            uncacheSearch(schedule);
             System.out.println("Schedule added for bus: " + schedule.getBus().getBusNumber());
+            return true;
+
+        } catch (SQLException e) {
+            reportWriteFailure(e, schedule);
+            return false;
+        }
+    }
+
+    /**
+     * All double bookings the proposed schedules would cause, checked against the bus interval index and
+     * against each other; empty if they can all be saved. Saved schedules in the list are treated as
+     * moves, so their old times don't count. Null if the buses couldn't be loaded.
+     */
+    public List<ScheduleConflict> findConflicts(List<Schedule> proposed) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return null;
+            }
+            busTrips.load(conn, busIds(proposed), false);
+            return busTrips.check(proposed);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private boolean conflictFree(Schedule schedule) {
+        List<ScheduleConflict> conflicts = findConflicts(List.of(schedule));
+        if (conflicts == null) {
+            return false;
+        }
+        for (ScheduleConflict c : conflicts) {
+            System.err.println("Schedule rejected. " + c);
+        }
+        return conflicts.isEmpty();
+    }
+
+    // The exclusion constraint catches overlaps written by other clients since the bus was indexed
+    private void reportWriteFailure(SQLException e, Schedule schedule) {
+        if (EXCLUSION_VIOLATION.equals(e.getSQLState())) {
+            System.err.println("Schedule rejected. Bus " + schedule.getBus().getBusNumber()
+                    + " already has a trip at that time.");
+            busTrips.clear(); // our copy of that bus is out of date
+        } else {
+            e.printStackTrace();
+        }
+    }
+
+    private static Set<Long> busIds(List<Schedule> schedules) {
+        Set<Long> ids = new TreeSet<>(); // sorted, so concurrent writers lock buses in the same order
+        for (Schedule s : schedules) {
+            ids.add(s.getBus().getId());
+        }
+        return ids;
+    }
+
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    // Rows per executeBatch when writing schedules in bulk
+    private static final int INSERT_BATCH_SIZE = 1_000;
+
+    // Expands the template over the recurrence and writes the result like addSchedules
+    public ScheduleBatchResult addRecurringSchedule(Schedule template, Recurrence recurrence) {
+        return addSchedules(recurrence.expand(template));
+    }
 
+    /**
+     * Inserts many schedules in one transaction with batched INSERTs. A schedule is skipped (not an error)
+     * when its bus already has a trip overlapping it, either in the database or earlier in the same list;
+     * the result lists every such conflict. The buses involved are locked and re-read from the database for
+     * the duration, so two bulk writes can't interleave. Returns null if the transaction failed and nothing
+     * was written.
+     */
+    public ScheduleBatchResult addSchedules(List<Schedule> schedules) {
+        if (schedules.isEmpty()) {
+            return new ScheduleBatchResult(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        }
+        Set<Long> busIds = busIds(schedules);
+
+        String lockSql = "SELECT id FROM buses WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+        String insertSql = "INSERT INTO schedules (bus_id, route_id, departure_time, arrival_time, ticket_price, " +
+                "available_seats) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try {
+            ScheduleBatchResult result = TransactionExecutor.getInstance().inTransaction(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(lockSql)) {
+                    stmt.setArray(1, conn.createArrayOf("bigint", busIds.toArray()));
+                    stmt.executeQuery().close();
+                }
+                busTrips.load(conn, busIds, true);
+                List<ScheduleConflict> conflicts = busTrips.check(schedules);
+
+                Set<Schedule> clashing = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (ScheduleConflict c : conflicts) {
+                    clashing.add(c.getProposed());
+                }
+                List<Schedule> created = new ArrayList<>();
+                List<Schedule> skipped = new ArrayList<>();
+                for (Schedule s : schedules) {
+                    (clashing.contains(s) ? skipped : created).add(s);
+                }
+
+                try (PreparedStatement stmt = conn.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+                    for (int start = 0; start < created.size(); start += INSERT_BATCH_SIZE) {
+                        List<Schedule> chunk = created.subList(start, Math.min(start + INSERT_BATCH_SIZE, created.size()));
+                        for (Schedule s : chunk) {
+                            stmt.setLong(1, s.getBus().getId());
+                            stmt.setLong(2, s.getRoute().getId());
+                            stmt.setTimestamp(3, Timestamp.valueOf(s.getDepartureTime()));
+                            stmt.setTimestamp(4, Timestamp.valueOf(s.getArrivalTime()));
+                            stmt.setBigDecimal(5, s.getTicketPrice());
+                            stmt.setInt(6, s.getAvailableSeats());
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            for (Schedule s : chunk) {
+                                if (keys.next()) {
+                                    s.setId(keys.getLong(1));
+                                }
+                            }
+                        }
+                    }
+                }
+                if (!created.isEmpty()) {
+                    ReportController.shiftSchedules(conn, "s.id = ANY(?)", 1,
+                            (Object) created.stream().map(Schedule::getId).toArray(Long[]::new));
+                }
+                return new ScheduleBatchResult(created, skipped, conflicts);
+            });
+            for (Schedule s : result.getCreated()) {
+                busTrips.put(s);
+            }
+            timetableChanged();
+            System.out.println("Schedules added: " + result.getCreatedCount() + ", skipped as conflicts: "
+                    + result.getSkippedCount());
+            return result;
         } catch (SQLException e) {
+            if (EXCLUSION_VIOLATION.equals(e.getSQLState())) {
+                busTrips.clear();
+            }
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -48,74 +280,211 @@ public class ScheduleController {
                 "JOIN routes r ON s.route_id = r.id");
     }
 
+    // Upcoming departures only; past schedules are never returned
     public List<Schedule> searchTrips(String from, String to) {
+        return searchTrips(from, to, LocalDateTime.now(), null, SEARCH_LIMIT);
+    }
+
+    // Departures on the given day that haven't left yet. Served from the trip index while it is fresh, else
+    // from the result cache when possible; seat counts there are at most search.cache.ttlMs old
+    public List<Schedule> searchTrips(String from, String to, LocalDate date) {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime departAfter = start.isBefore(now) ? now : start;
+        LocalDateTime departBefore = date.plusDays(1).atStartOfDay();
+        SearchResultCache cache = searchCache;
+        TripSearchIndex index = searchIndex;
+        if (cache == null || index != null && index.isFresh()) {
+            return searchTrips(from, to, departAfter, departBefore, SEARCH_LIMIT);
+        }
+
+        CityDictionary dictionary = CityDictionary.getInstance();
+        String key = SearchResultCache.key(dictionary.idOf(from), dictionary.idOf(to), date);
+        List<Schedule> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long started = cache.startLoad();
+        List<Schedule> results = null;
+        try {
+            results = searchTrips(from, to, departAfter, departBefore, SEARCH_LIMIT);
+        } finally {
+            cache.finishLoad(key, results, started);
+        }
+        return results;
+    }
+
+    // Departures in [departAfter, departBefore), earliest first; departBefore == null means open-ended,
+    // limit <= 0 means no limit. Served by ix_schedules_route_departure, so the cost depends on the
+    // window rather than on how much history the route has. Cities are matched through the city dictionary.
+    public List<Schedule> searchTrips(String from, String to, LocalDateTime departAfter, LocalDateTime departBefore,
+            int limit) {
+        CityDictionary dictionary = CityDictionary.getInstance();
+        int fromId = dictionary.idOf(from);
+        int toId = dictionary.idOf(to);
+        if (fromId == CityDictionary.UNKNOWN || toId == CityDictionary.UNKNOWN) {
+            return new ArrayList<>(); // No route touches a city the dictionary has never seen
+        }
+
+        TripSearchIndex index = searchIndex;
+        if (index != null && index.isFresh()) {
+            return index.search(fromId, toId, departAfter, departBefore, limit);
+        }
+
         String sql = "SELECT s.*, b.bus_number, b.total_seats, b.type, b.is_operational, " +
                 "r.source_city, r.destination_city, r.distance_km, r.estimated_duration " +
                 "FROM schedules s " +
                 "JOIN buses b ON s.bus_id = b.id " +
                 "JOIN routes r ON s.route_id = r.id " +
-                "WHERE LOWER(r.source_city) = LOWER(?) AND LOWER(r.destination_city) = LOWER(?)";
+                "WHERE r.source_city_id = ? AND r.destination_city_id = ? " +
+                "AND s.departure_time >= ?" +
+                (departBefore != null ? " AND s.departure_time < ?" : "") +
+                " ORDER BY s.departure_time, s.id" +
+                (limit > 0 ? " LIMIT ?" : "");
 
-        List<Schedule> results = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, from);
-            stmt.setString(2, to);
+            int i = 1;
+            stmt.setInt(i++, fromId);
+            stmt.setInt(i++, toId);
+            stmt.setObject(i++, departAfter);
+            if (departBefore != null) {
+                stmt.setObject(i++, departBefore);
+            }
+            if (limit > 0) {
+                stmt.setInt(i, limit);
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    results.add(mapResultSetToSchedule(rs));
+                return RowMapper.mapAll(rs, new ScheduleRowMapper(rs, "id"));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    // Earliest-arrival itinerary first, then the cheapest one if it differs; journeys leave on the given
+    // day (not in the past) and may need up to journey.maxTransfers changes of bus. Empty for dates after
+    // getLastPlannableDate(), and until the first timetable snapshot has loaded.
+    public List<Journey> planJourneys(String from, String to, LocalDate date) {
+        return planJourneys(from, to, date, MAX_TRANSFERS, MIN_LAYOVER_MINUTES);
+    }
+
+    public List<Journey> planJourneys(String from, String to, LocalDate date, int maxTransfers,
+            int minLayoverMinutes) {
+        List<Journey> journeys = new ArrayList<>();
+        CityDictionary dictionary = CityDictionary.getInstance();
+        int fromId = dictionary.idOf(from);
+        int toId = dictionary.idOf(to);
+        if (fromId == CityDictionary.UNKNOWN || toId == CityDictionary.UNKNOWN || fromId == toId) {
+            return journeys;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime departAfter = start.isBefore(now) ? now : start;
+        LocalDateTime departBefore = date.plusDays(1).atStartOfDay();
+        LocalDateTime latestArrival = departBefore.plusHours(MAX_JOURNEY_HOURS);
+        if (!departAfter.isBefore(departBefore) || date.isAfter(getLastPlannableDate())) {
+            return journeys;
+        }
+
+        // Never queries here: a search the snapshot doesn't cover (just after midnight, before the first
+        // load) gets no journeys rather than a timetable load of its own
+        PlannerSnapshot snapshot = plannerSnapshot;
+        if (snapshot == null || departAfter.isBefore(snapshot.from) || latestArrival.isAfter(snapshot.until)) {
+            return journeys;
+        }
+        ConnectionScanPlanner timetable = snapshot.planner;
+        long layover = minLayoverMinutes * 60L;
+        Journey earliest = timetable.earliestArrival(fromId, toId, departAfter, departBefore, latestArrival,
+                maxTransfers, layover);
+        if (earliest == null) {
+            return journeys; // nothing reaches the destination at all
+        }
+        journeys.add(earliest);
+        Journey cheapest = timetable.cheapest(fromId, toId, departAfter, departBefore, latestArrival,
+                maxTransfers, layover);
+        if (cheapest != null && !cheapest.sameLegsAs(earliest)) {
+            journeys.add(cheapest);
+        }
+        return journeys;
+    }
+
+    // Last departure day planJourneys covers
+    public LocalDate getLastPlannableDate() {
+        return LocalDate.now().plusDays(PLANNER_HORIZON_DAYS - 1);
+    }
+
+    // Queues a background rebuild; several changes in a row share one
+    private void plannerChanged() {
+        if (plannerRebuildQueued.compareAndSet(false, true)) {
+            plannerRefresher.execute(this::rebuildPlanner);
+        }
+    }
+
+    // Runs on the journey-planner thread only; searches keep using the previous snapshot meanwhile
+    private void rebuildPlanner() {
+        plannerRebuildQueued.set(false);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = LocalDate.now().plusDays(PLANNER_HORIZON_DAYS).atStartOfDay()
+                .plusHours(MAX_JOURNEY_HOURS);
+        try {
+            ConnectionScanPlanner built = loadPlanner(now, until);
+            if (built != null) {
+                plannerSnapshot = new PlannerSnapshot(built, now, until);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // an exception escaping would cancel the periodic rebuild
+        }
+    }
+
+    private ConnectionScanPlanner loadPlanner(LocalDateTime from, LocalDateTime until) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return null;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(PLANNER_SQL)) {
+                stmt.setObject(1, from);
+                stmt.setObject(2, until);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ScheduleRowMapper mapper = new ScheduleRowMapper(rs, "id");
+                    int sourceCityId = rs.findColumn("source_city_id");
+                    int destinationCityId = rs.findColumn("destination_city_id");
+                    List<Schedule> schedules = new ArrayList<>();
+                    int[] sources = new int[256];
+                    int[] destinations = new int[256];
+                    while (rs.next()) {
+                        if (schedules.size() == sources.length) {
+                            sources = Arrays.copyOf(sources, sources.length * 2);
+                            destinations = Arrays.copyOf(destinations, destinations.length * 2);
+                        }
+                        sources[schedules.size()] = rs.getInt(sourceCityId);
+                        destinations[schedules.size()] = rs.getInt(destinationCityId);
+                        schedules.add(mapper.map(rs));
+                    }
+                    return new ConnectionScanPlanner(schedules, sources, destinations);
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return results;
+        return null;
     }
 
     // Helper method to execute query and map results
     private List<Schedule> fetchSchedules(String sql) {
-        List<Schedule> schedules = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql);
                 ResultSet rs = stmt.executeQuery()) {
 
-            while (rs.next()) {
-                schedules.add(mapResultSetToSchedule(rs));
-            }
+            return RowMapper.mapAll(rs, new ScheduleRowMapper(rs, "id"));
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return schedules;
-    }
-
-    // Helper to construct object from joined query
-    private Schedule mapResultSetToSchedule(ResultSet rs) throws SQLException {
-        Bus bus = new Bus(
-                rs.getLong("bus_id"),
-                rs.getString("bus_number"),
-                rs.getInt("total_seats"),
-                rs.getString("type"));
-        bus.setOperational(rs.getBoolean("is_operational"));
-
-        Route route = new Route(
-                rs.getLong("route_id"),
-                rs.getString("source_city"),
-                rs.getString("destination_city"),
-                rs.getDouble("distance_km"),
-                rs.getString("estimated_duration"));
-
-        Schedule schedule = new Schedule(
-                rs.getLong("id"),
-                bus,
-                route,
-                rs.getTimestamp("departure_time").toLocalDateTime(),
-                rs.getTimestamp("arrival_time").toLocalDateTime(),
-                rs.getBigDecimal("ticket_price"));
-        schedule.setAvailableSeats(rs.getInt("available_seats"));
-
-        return schedule;
+        return new ArrayList<>();
     }
 
     public Schedule getScheduleById(Long scheduleId) {
@@ -132,7 +501,7 @@ public class ScheduleController {
             stmt.setLong(1, scheduleId);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return mapResultSetToSchedule(rs);
+                    return new ScheduleRowMapper(rs, "id").map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -149,20 +518,17 @@ public class ScheduleController {
                 "JOIN routes r ON s.route_id = r.id " +
                 "WHERE r.id = ?";
 
-        List<Schedule> schedules = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, routeId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    schedules.add(mapResultSetToSchedule(rs));
-                }
+                return RowMapper.mapAll(rs, new ScheduleRowMapper(rs, "id"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return schedules;
+        return new ArrayList<>();
     }
 
     // New methods for route deletion handling
@@ -184,16 +550,28 @@ public class ScheduleController {
         return -1;
     }
 
-    // Reassign schedules from one route to another
+    // Reassign schedules from one route to another; their rollup totals move with them
     public int reassignSchedulesToRoute(Long fromRouteId, Long toRouteId) {
-        String sql = "UPDATE schedules SET route_id = ? WHERE route_id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, toRouteId);
-            stmt.setLong(2, fromRouteId);
-            return stmt.executeUpdate();
+        String sql = "UPDATE schedules SET route_id = ? WHERE route_id = ? RETURNING id";
+
+        try {
+            int rows = TransactionExecutor.getInstance().inTransaction(conn -> {
+                ReportController.shiftSchedules(conn, "s.route_id = ?", -1, fromRouteId);
+                List<Long> moved = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setLong(1, toRouteId);
+                    stmt.setLong(2, fromRouteId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            moved.add(rs.getLong(1));
+                        }
+                    }
+                }
+                ReportController.shiftSchedules(conn, "s.id = ANY(?)", 1, (Object) moved.toArray(new Long[0]));
+                return moved.size();
+            });
+            schedulesChanged();
+            return rows;
         } catch (SQLException e) {
             e.printStackTrace();
             return -1;
@@ -202,13 +580,17 @@ public class ScheduleController {
 
     // Delete schedules tied to a specific route
     public int deleteSchedulesByRoute(Long routeId) {
-        String sql = "DELETE FROM schedules WHERE route_id = ?";
+        String sql = "WITH rolled AS (" + ReportController.scheduleRollup("s.route_id = ?", -1) + ") " +
+                "DELETE FROM schedules WHERE route_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, routeId);
-            return stmt.executeUpdate();
+            stmt.setLong(2, routeId);
+            int rows = stmt.executeUpdate();
+            schedulesChanged();
+            return rows;
         } catch (SQLException e) {
             e.printStackTrace();
             return -1;
@@ -220,38 +602,74 @@ public class ScheduleController {
             System.err.println("Schedule ID is required to update a record.");
             return false;
         }
+        if (!conflictFree(schedule)) {
+            return false;
+        }
 
-        String sql = "UPDATE schedules SET bus_id = ?, route_id = ?, departure_time = ?, " +
-                "arrival_time = ?, ticket_price = ?, available_seats = ? WHERE id = ?";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setLong(1, schedule.getBus().getId());
-            stmt.setLong(2, schedule.getRoute().getId());
-            stmt.setTimestamp(3, Timestamp.valueOf(schedule.getDepartureTime()));
-            stmt.setTimestamp(4, Timestamp.valueOf(schedule.getArrivalTime()));
-            stmt.setBigDecimal(5, schedule.getTicketPrice());
-            stmt.setInt(6, schedule.getAvailableSeats());
-            stmt.setLong(7, schedule.getId());
-
-            int rowsUpdated = stmt.executeUpdate();
+        // Joined to the new route so the search index gets its stored city ids
+        String sql = "UPDATE schedules s SET bus_id = ?, route_id = ?, departure_time = ?, " +
+                "arrival_time = ?, ticket_price = ?, available_seats = ? " +
+                "FROM routes r WHERE s.id = ? AND r.id = ? " +
+                "RETURNING r.source_city_id, r.destination_city_id";
+
+        try {
+            // The rollup row moves with the schedule if its route, day or bus changes
+            int[] cityIds = TransactionExecutor.getInstance().inTransaction(conn -> {
+                ReportController.shiftSchedules(conn, "s.id = ?", -1, schedule.getId());
+                int[] ids = null;
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setLong(1, schedule.getBus().getId());
+                    stmt.setLong(2, schedule.getRoute().getId());
+                    stmt.setTimestamp(3, Timestamp.valueOf(schedule.getDepartureTime()));
+                    stmt.setTimestamp(4, Timestamp.valueOf(schedule.getArrivalTime()));
+                    stmt.setBigDecimal(5, schedule.getTicketPrice());
+                    stmt.setInt(6, schedule.getAvailableSeats());
+                    stmt.setLong(7, schedule.getId());
+                    stmt.setLong(8, schedule.getRoute().getId());
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            ids = new int[]{rs.getInt(1), rs.getInt(2)};
+                        }
+                    }
+                }
+                ReportController.shiftSchedules(conn, "s.id = ?", 1, schedule.getId());
+                return ids;
+            });
+            boolean updated = cityIds != null;
+            if (searchIndex != null && updated) {
+                searchIndex.put(schedule, cityIds[0], cityIds[1]);
+            }
+            if (updated) {
+                busTrips.put(schedule);
+            }
+            plannerChanged();
+            uncacheSearch(schedule);
             System.out.println("Schedule updated with ID: " + schedule.getId());
-            return rowsUpdated > 0;
+            return updated;
         } catch (SQLException e) {
-            e.printStackTrace();
+            reportWriteFailure(e, schedule);
             return false;
         }
     }
 
     public boolean deleteSchedule(Long scheduleId) {
-        String sql = "DELETE FROM schedules WHERE id = ?";
+        String sql = "WITH rolled AS (" + ReportController.scheduleRollup("s.id = ?", -1) + ") " +
+                "DELETE FROM schedules WHERE id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setLong(1, scheduleId);
+            stmt.setLong(2, scheduleId);
             int rowsDeleted = stmt.executeUpdate();
+            if (searchIndex != null) {
+                searchIndex.remove(scheduleId);
+            }
+            busTrips.remove(scheduleId);
+            plannerChanged();
+            if (searchCache != null) {
+                searchCache.invalidateSchedule(scheduleId);
+            }
             System.out.println("Schedule deleted with ID: " + scheduleId);
             return rowsDeleted > 0;
         } catch (SQLException e) {
@@ -259,4 +677,53 @@ public class ScheduleController {
             return false;
         }
     }
+
+    // Seat count moved by a booking or cancellation made in this process
+    public void seatsChanged(Long scheduleId, int delta) {
+        if (searchIndex != null && delta != 0) {
+            searchIndex.adjustSeats(scheduleId, delta);
+        }
+        if (searchCache != null && delta != 0) {
+            searchCache.invalidateSchedule(scheduleId);
+        }
+    }
+
+    // Bulk or indirect changes (bus/route deletes, route renames): rebuild the search index, planner and
+    // bus interval index
+    public void schedulesChanged() {
+        busTrips.clear();
+        timetableChanged();
+    }
+
+    private void timetableChanged() {
+        plannerChanged();
+        if (searchIndex != null) {
+            searchIndex.invalidate();
+        }
+        if (searchCache != null) {
+            searchCache.clear();
+        }
+    }
+
+    // Drops cached searches that showed this schedule or that it now belongs to
+    private void uncacheSearch(Schedule schedule) {
+        if (searchCache == null) {
+            return;
+        }
+        if (schedule.getId() != null) {
+            searchCache.invalidateSchedule(schedule.getId());
+        }
+        CityDictionary dictionary = CityDictionary.getInstance();
+        searchCache.invalidate(SearchResultCache.key(dictionary.idOf(schedule.getRoute().getSourceCity()),
+                dictionary.idOf(schedule.getRoute().getDestinationCity()), schedule.getDepartureTime().toLocalDate()));
+    }
+
+    public boolean isSearchIndexEnabled() {
+        return searchIndex != null;
+    }
+
+    // Hit/miss/eviction counters of the search result cache, or null when it is disabled
+    public SearchResultCache getSearchCache() {
+        return searchCache;
+    }
 }
@@ -0,0 +1,88 @@
+package controllers;
+
+import db.Columns;
+import db.IdentityMap;
+import db.RowMapper;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import models.Bus;
+import models.Route;
+import models.Schedule;
+
+// Schedule joined with its bus and route; column indexes are resolved once per ResultSet and each
+// schedule, bus and route id is materialized once per identity map
+class ScheduleRowMapper implements RowMapper<Schedule> {
+
+    private final int id;
+    private final int departureTime;
+    private final int arrivalTime;
+    private final int ticketPrice;
+    private final int availableSeats;
+    private final int busId;
+    private final int busNumber;
+    private final int totalSeats;
+    private final int busType;
+    private final int operational;
+    private final int routeId;
+    private final int sourceCity;
+    private final int destinationCity;
+    private final int distanceKm;
+    private final int estimatedDuration;
+    private final IdentityMap identities;
+
+    // idLabel is "id" for schedule queries and "schedule_id" when the schedule is joined to another table
+    ScheduleRowMapper(ResultSet rs, String idLabel) throws SQLException {
+        this(new Columns(rs), idLabel, new IdentityMap());
+    }
+
+    ScheduleRowMapper(Columns cols, String idLabel, IdentityMap identities) throws SQLException {
+        this.identities = identities;
+        id = cols.of(idLabel);
+        departureTime = cols.of("departure_time");
+        arrivalTime = cols.of("arrival_time");
+        ticketPrice = cols.of("ticket_price");
+        availableSeats = cols.of("available_seats");
+        busId = cols.of("bus_id");
+        busNumber = cols.of("bus_number");
+        totalSeats = cols.of("total_seats");
+        busType = cols.of("type");
+        operational = cols.of("is_operational");
+        routeId = cols.of("route_id");
+        sourceCity = cols.of("source_city");
+        destinationCity = cols.of("destination_city");
+        distanceKm = cols.of("distance_km");
+        estimatedDuration = cols.of("estimated_duration");
+    }
+
+    @Override
+    public Schedule map(ResultSet rs) throws SQLException {
+        long scheduleId = rs.getLong(id);
+        Schedule schedule = identities.get(Schedule.class, scheduleId);
+        if (schedule != null) {
+            return schedule;
+        }
+
+        long bId = rs.getLong(busId);
+        Bus bus = identities.get(Bus.class, bId);
+        if (bus == null) {
+            bus = new Bus(bId, rs.getString(busNumber), rs.getInt(totalSeats), rs.getString(busType));
+            bus.setOperational(rs.getBoolean(operational));
+            identities.put(Bus.class, bId, bus);
+        }
+
+        long rId = rs.getLong(routeId);
+        Route route = identities.get(Route.class, rId);
+        if (route == null) {
+            route = identities.put(Route.class, rId, new Route(rId, rs.getString(sourceCity),
+                    rs.getString(destinationCity), rs.getDouble(distanceKm), rs.getString(estimatedDuration)));
+        }
+
+        schedule = new Schedule(scheduleId, bus, route,
+                rs.getObject(departureTime, LocalDateTime.class),
+                rs.getObject(arrivalTime, LocalDateTime.class),
+                rs.getBigDecimal(ticketPrice));
+        schedule.setAvailableSeats(rs.getInt(availableSeats));
+        return identities.put(Schedule.class, scheduleId, schedule);
+    }
+}
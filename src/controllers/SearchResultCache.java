@@ -0,0 +1,195 @@
+package controllers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import models.Schedule;
+
+/**
+ * Bounded cache of trip search results keyed by (from city id, to city id, travel date). Entries expire
+ * after ttlMs, which bounds how stale a seat count can be when another client changes it. Changes made
+ * through this process drop the affected entries right away: every entry remembers the schedules it holds,
+ * so a booking or cancellation only evicts the searches that showed that schedule. ScheduleController skips
+ * the cache while its trip index is fresh, since the index is already in memory and more current.
+ */
+public class SearchResultCache {
+
+    private static final class Entry {
+        final List<Schedule> trips;
+        final long loadedAt;
+
+        Entry(List<Schedule> trips, long loadedAt) {
+            this.trips = trips;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final LruCache<String, Entry> entries;
+    private final Map<Long, Set<String>> keysBySchedule = new HashMap<>();
+    // Clock for the stamps below, bumped by every invalidation
+    private long generation;
+    // When each key / schedule was last invalidated, so a search that read it before then doesn't cache
+    // what it read; only kept while a search is loading
+    private final Map<String, Long> keyStamps = new HashMap<>();
+    private final Map<Long, Long> scheduleStamps = new HashMap<>();
+    private long clearedAt;
+    private int loading;
+
+    private long hits;
+    private long misses;
+    private long expirations;
+    private long invalidations;
+
+    SearchResultCache(int maxEntries, long ttlMs) {
+        this.ttlMs = ttlMs;
+        this.entries = new LruCache<>(maxEntries, (key, entry) -> unlink(key, entry));
+    }
+
+    static String key(int fromCityId, int toCityId, LocalDate date) {
+        return fromCityId + ":" + toCityId + ":" + date;
+    }
+
+    // Copies of the cached trips still to depart, or null on a miss
+    synchronized List<Schedule> get(String key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (System.currentTimeMillis() - e.loadedAt > ttlMs) {
+            drop(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        LocalDateTime now = LocalDateTime.now();
+        List<Schedule> trips = new ArrayList<>(e.trips.size());
+        for (Schedule s : e.trips) {
+            if (!s.getDepartureTime().isBefore(now)) {
+                trips.add(TripSearchIndex.copy(s));
+            }
+        }
+        return trips;
+    }
+
+    // Call before reading a miss from the database, and finishLoad() with the result afterwards
+    synchronized long startLoad() {
+        loading++;
+        return generation;
+    }
+
+    // Caches trips (null if the search failed) unless the key, one of the schedules read or the whole cache
+    // was invalidated after startLoad() returned started
+    synchronized void finishLoad(String key, List<Schedule> trips, long started) {
+        try {
+            if (trips != null && !invalidatedSince(key, trips, started)) {
+                put(key, trips);
+            }
+        } finally {
+            if (--loading == 0) {
+                keyStamps.clear();
+                scheduleStamps.clear();
+            }
+        }
+    }
+
+    private boolean invalidatedSince(String key, List<Schedule> trips, long started) {
+        if (clearedAt > started || keyStamps.getOrDefault(key, 0L) > started) {
+            return true;
+        }
+        for (Schedule s : trips) {
+            if (scheduleStamps.getOrDefault(s.getId(), 0L) > started) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(String key, List<Schedule> trips) {
+        drop(key);
+        List<Schedule> copies = new ArrayList<>(trips.size());
+        for (Schedule s : trips) {
+            copies.add(TripSearchIndex.copy(s));
+            keysBySchedule.computeIfAbsent(s.getId(), k -> new HashSet<>()).add(key);
+        }
+        entries.put(key, new Entry(copies, System.currentTimeMillis()));
+    }
+
+    // Seats or times changed on one schedule
+    synchronized void invalidateSchedule(Long scheduleId) {
+        if (loading > 0) {
+            scheduleStamps.put(scheduleId, ++generation);
+        }
+        Set<String> keys = keysBySchedule.remove(scheduleId);
+        if (keys != null) {
+            for (String key : keys) {
+                drop(key);
+                invalidations++;
+            }
+        }
+    }
+
+    // A schedule was added to this search
+    synchronized void invalidate(String key) {
+        if (loading > 0) {
+            keyStamps.put(key, ++generation);
+        }
+        if (drop(key)) {
+            invalidations++;
+        }
+    }
+
+    synchronized void clear() {
+        clearedAt = ++generation;
+        invalidations += entries.size();
+        entries.clear();
+        keysBySchedule.clear();
+    }
+
+    private boolean drop(String key) {
+        Entry e = entries.remove(key);
+        if (e != null) {
+            unlink(key, e);
+        }
+        return e != null;
+    }
+
+    private void unlink(String key, Entry e) {
+        for (Schedule s : e.trips) {
+            Set<String> keys = keysBySchedule.get(s.getId());
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysBySchedule.remove(s.getId());
+                }
+            }
+        }
+    }
+
+    // --- Stats ---
+    public long getTtlMs() { return ttlMs; }
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return entries.getEvictions(); }
+    public synchronized long getExpirations() { return expirations; }
+    public synchronized long getInvalidations() { return invalidations; }
+
+    public synchronized double getHitRate() {
+        long n = hits + misses;
+        return n == 0 ? 0 : (double) hits / n;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("entries=%d hits=%d misses=%d (%.1f%% hit) evictions=%d expirations=%d invalidations=%d",
+                size(), hits, misses, getHitRate() * 100, getEvictions(), expirations, invalidations);
+    }
+}
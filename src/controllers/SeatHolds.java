@@ -0,0 +1,165 @@
+package controllers;
+
+import db.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks PENDING seat holds made by this client and releases them when they expire.
+ * Every hold gets the same TTL, so expiries arrive in insertion order and a FIFO queue is enough:
+ * adding is O(1) and a sweep only looks at the expired head of the queue. All holds that expired
+ * since the last sweep are released with a single statement.
+ */
+public class SeatHolds {
+
+    private static class Entry {
+        final long expiresAtMillis;
+        final long[] bookingIds;
+
+        Entry(long expiresAtMillis, long[] bookingIds) {
+            this.expiresAtMillis = expiresAtMillis;
+            this.bookingIds = bookingIds;
+        }
+    }
+
+    // Deletes the pending rows and gives their seats back, one aggregated UPDATE per schedule; returns the
+    // seats released per schedule so cached seat counts can be corrected
+    private static final String RELEASE_BY_ID_SQL =
+            "WITH released AS (" +
+            "    DELETE FROM bookings WHERE id = ANY(?) AND status = 'PENDING' RETURNING schedule_id" +
+            "), counts AS (" +
+            "    SELECT schedule_id, COUNT(*) AS n FROM released GROUP BY schedule_id" +
+            ") " +
+            "UPDATE schedules s SET available_seats = s.available_seats + c.n FROM counts c WHERE s.id = c.schedule_id " +
+            "RETURNING s.id, c.n";
+
+    // Safety net for holds this process never saw (other clients, or a crash before expiry)
+    private static final String RELEASE_STALE_SQL =
+            "WITH released AS (" +
+            "    DELETE FROM bookings WHERE status = 'PENDING' AND hold_expires_at < NOW() RETURNING schedule_id" +
+            "), counts AS (" +
+            "    SELECT schedule_id, COUNT(*) AS n FROM released GROUP BY schedule_id" +
+            ") " +
+            "UPDATE schedules s SET available_seats = s.available_seats + c.n FROM counts c WHERE s.id = c.schedule_id " +
+            "RETURNING s.id, c.n";
+
+    private final long ttlMillis;
+    private final int staleSweepEvery;
+    private final Deque<Entry> expiryQueue = new ArrayDeque<>();
+    private final Set<Long> active = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sweeper;
+    private long sweepCount;
+
+    private final AtomicLong expiredReleased = new AtomicLong();
+    private final AtomicLong sweeps = new AtomicLong();
+
+    public SeatHolds(long ttlMillis, long sweepIntervalMs, int staleSweepEvery) {
+        this.ttlMillis = ttlMillis;
+        this.staleSweepEvery = Math.max(1, staleSweepEvery);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "seat-hold-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public long getTtlMillis() { return ttlMillis; }
+    public int getActiveCount() { return active.size(); }
+    public long getExpiredReleased() { return expiredReleased.get(); }
+    public long getSweepCount() { return sweeps.get(); }
+
+    public void track(List<Long> bookingIds, long expiresAtMillis) {
+        long[] ids = new long[bookingIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = bookingIds.get(i);
+            active.add(ids[i]);
+        }
+        synchronized (expiryQueue) {
+            expiryQueue.addLast(new Entry(expiresAtMillis, ids));
+        }
+    }
+
+    // Stop tracking (confirmed or explicitly released); the queue entry is skipped lazily on sweep
+    public void forget(List<Long> bookingIds) {
+        active.removeAll(bookingIds);
+    }
+
+    // Releases the given holds right away, e.g. when the customer backs out of checkout
+    public boolean release(List<Long> bookingIds) {
+        forget(bookingIds);
+        try {
+            releaseIds(bookingIds.toArray(new Long[0]));
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        List<Long> expired = new ArrayList<>();
+        synchronized (expiryQueue) {
+            while (!expiryQueue.isEmpty() && expiryQueue.peekFirst().expiresAtMillis <= now) {
+                for (long id : expiryQueue.pollFirst().bookingIds) {
+                    if (active.remove(id)) {
+                        expired.add(id);
+                    }
+                }
+            }
+        }
+
+        try {
+            if (!expired.isEmpty()) {
+                releaseIds(expired.toArray(new Long[0]));
+                expiredReleased.addAndGet(expired.size());
+            }
+            if (sweepCount++ % staleSweepEvery == 0) {
+                execute(RELEASE_STALE_SQL, null);
+            }
+        } catch (SQLException e) {
+            // Keep the sweeper alive; the stale sweep will pick up anything missed here
+            e.printStackTrace();
+        }
+        sweeps.incrementAndGet();
+    }
+
+    private void releaseIds(Long[] ids) throws SQLException {
+        execute(RELEASE_BY_ID_SQL, ids);
+    }
+
+    private void execute(String sql, Long[] ids) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("No DB connection; cannot release seat holds.");
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                if (ids != null) {
+                    stmt.setArray(1, conn.createArrayOf("bigint", ids));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ScheduleController.getInstance().seatsChanged(rs.getLong(1), rs.getInt(2));
+                    }
+                }
+            }
+        }
+    }
+}
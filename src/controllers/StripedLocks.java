@@ -0,0 +1,121 @@
+package controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks keyed by id hash. Requests for the same id always share a stripe, so they queue
+ * here in the JVM instead of on a Postgres row lock while holding a pooled connection.
+ */
+public class StripedLocks {
+
+    // Point-in-time counters for one stripe
+    public static class StripeStats {
+        private final int stripe;
+        private final long acquisitions;
+        private final long contended;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+
+        StripeStats(int stripe, long acquisitions, long contended, long totalWaitNanos, long maxWaitNanos) {
+            this.stripe = stripe;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        public int getStripe() { return stripe; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getContended() { return contended; }
+        public long getTotalWaitNanos() { return totalWaitNanos; }
+        public long getMaxWaitNanos() { return maxWaitNanos; }
+
+        public double getAvgWaitMillis() {
+            return acquisitions == 0 ? 0 : totalWaitNanos / 1_000_000.0 / acquisitions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("stripe %d: %d acquisitions, %d contended, avg wait %.3f ms, max wait %.3f ms",
+                    stripe, acquisitions, contended, getAvgWaitMillis(), maxWaitNanos / 1_000_000.0);
+        }
+    }
+
+    private final ReentrantLock[] locks;
+    private final LongAdder[] acquisitions;
+    private final LongAdder[] contended;
+    private final LongAdder[] waitNanos;
+    private final AtomicLong[] maxWaitNanos;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1; // round up to a power of two
+        mask = size - 1;
+        locks = new ReentrantLock[size];
+        acquisitions = new LongAdder[size];
+        contended = new LongAdder[size];
+        waitNanos = new LongAdder[size];
+        maxWaitNanos = new AtomicLong[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock(true); // fair, so a hot departure is served first-come first-served
+            acquisitions[i] = new LongAdder();
+            contended[i] = new LongAdder();
+            waitNanos[i] = new LongAdder();
+            maxWaitNanos[i] = new AtomicLong();
+        }
+    }
+
+    public int stripeFor(long id) {
+        long h = id * 0x9E3779B97F4A7C15L; // spread sequential ids across stripes
+        return (int) (h >>> 32) & mask;
+    }
+
+    public int lock(long id) {
+        int stripe = stripeFor(id);
+        ReentrantLock lock = locks[stripe];
+        if (!lock.hasQueuedThreads() && lock.tryLock()) { // uncontended fast path, no barging past waiters
+            acquisitions[stripe].increment();
+            return stripe;
+        }
+
+        long start = System.nanoTime();
+        lock.lock();
+        long waited = System.nanoTime() - start;
+
+        acquisitions[stripe].increment();
+        contended[stripe].increment();
+        waitNanos[stripe].add(waited);
+        maxWaitNanos[stripe].accumulateAndGet(waited, Math::max);
+        return stripe;
+    }
+
+    public void unlock(int stripe) {
+        locks[stripe].unlock();
+    }
+
+    public int getStripeCount() {
+        return locks.length;
+    }
+
+    public List<StripeStats> getStats() {
+        List<StripeStats> stats = new ArrayList<>(locks.length);
+        for (int i = 0; i < locks.length; i++) {
+            stats.add(new StripeStats(i, acquisitions[i].sum(), contended[i].sum(),
+                    waitNanos[i].sum(), maxWaitNanos[i].get()));
+        }
+        return stats;
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < locks.length; i++) {
+            acquisitions[i].reset();
+            contended[i].reset();
+            waitNanos[i].reset();
+            maxWaitNanos[i].set(0);
+        }
+    }
+}
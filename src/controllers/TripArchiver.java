@@ -0,0 +1,210 @@
+package controllers;
+
+import db.DatabaseConnection;
+import db.DatabaseSchema;
+import db.TransactionExecutor;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finished trips out of the live tables. Schedules that arrived more than retentionDays ago, and all
+ * their bookings, are moved into schedules_archive / bookings_archive, which are partitioned by month
+ * (departure month for schedules, booking month for bookings). Each departure month is moved in its own
+ * transaction, so a run can stop half way and simply continue next time. Archived rows stay visible through
+ * the schedules_history / bookings_history views.
+ */
+public class TripArchiver {
+
+    public static class Result {
+        private final int months;
+        private final long schedules;
+        private final long bookings;
+
+        Result(int months, long schedules, long bookings) {
+            this.months = months;
+            this.schedules = schedules;
+            this.bookings = bookings;
+        }
+
+        public int getMonths() { return months; }
+        public long getSchedules() { return schedules; }
+        public long getBookings() { return bookings; }
+
+        @Override
+        public String toString() {
+            return String.format("%d schedules and %d bookings archived from %d month(s)", schedules, bookings, months);
+        }
+    }
+
+    private static final String MONTHS_SQL = "SELECT DISTINCT date_trunc('month', departure_time) AS m " +
+            "FROM schedules WHERE arrival_time < ? ORDER BY m";
+
+    private static final String BOOKING_MONTHS_SQL = "SELECT DISTINCT date_trunc('month', b.booking_date) AS m " +
+            "FROM bookings b JOIN schedules s ON b.schedule_id = s.id " +
+            "WHERE s.arrival_time < ? AND s.departure_time >= ? AND s.departure_time < ? AND b.booking_date IS NOT NULL";
+
+    private static final String MOVE_BOOKINGS_SQL = "WITH moved AS (" +
+            "    DELETE FROM bookings b USING schedules s " +
+            "    WHERE b.schedule_id = s.id AND s.arrival_time < ? AND s.departure_time >= ? AND s.departure_time < ? " +
+            "    RETURNING " + prefixed("b.", DatabaseSchema.BOOKING_COLUMNS) +
+            ") INSERT INTO bookings_archive (" + DatabaseSchema.BOOKING_COLUMNS + ") " +
+            "SELECT " + DatabaseSchema.BOOKING_COLUMNS + " FROM moved";
+
+    // Skips any schedule that still has a booking (one made after the bookings above were moved)
+    private static final String MOVE_SCHEDULES_SQL = "WITH moved AS (" +
+            "    DELETE FROM schedules s " +
+            "    WHERE s.arrival_time < ? AND s.departure_time >= ? AND s.departure_time < ? " +
+            "    AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.schedule_id = s.id) " +
+            "    RETURNING " + prefixed("s.", DatabaseSchema.SCHEDULE_COLUMNS) +
+            ") INSERT INTO schedules_archive (" + DatabaseSchema.SCHEDULE_COLUMNS + ") " +
+            "SELECT " + DatabaseSchema.SCHEDULE_COLUMNS + " FROM moved";
+
+    private final int retentionDays;
+    private ScheduledExecutorService scheduler;
+
+    public TripArchiver(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public int getRetentionDays() { return retentionDays; }
+
+    // Runs archive() now and then every intervalHours on a daemon thread
+    public synchronized void start(long intervalHours) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trip-archiver");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            // Anything escaping here would cancel every later run
+            try {
+                Result result = archive();
+                if (result != null) {
+                    System.out.println("Archive run: " + result);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, 0, intervalHours, TimeUnit.HOURS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // Archives everything older than the retention window; null if the first step failed. A failure part
+    // way through keeps the months already moved and reports them.
+    public Result archive() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        List<LocalDateTime> months = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                System.err.println("No DB connection; archiving skipped until the next run.");
+                return null;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(MONTHS_SQL)) {
+                stmt.setObject(1, cutoff);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        months.add(rs.getObject(1, LocalDateTime.class));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        int done = 0;
+        long schedules = 0;
+        long bookings = 0;
+        for (LocalDateTime month : months) {
+            try {
+                long[] moved = archiveMonth(month, cutoff);
+                schedules += moved[0];
+                bookings += moved[1];
+                done++;
+            } catch (SQLException e) {
+                System.err.println("Archiving " + month.toLocalDate() + " failed; will retry on the next run.");
+                e.printStackTrace();
+                break;
+            }
+        }
+        if (schedules > 0) {
+            ScheduleController.getInstance().schedulesChanged();
+        }
+        return new Result(done, schedules, bookings);
+    }
+
+    // {schedules, bookings} moved for trips departing in the month starting at monthStart
+    private long[] archiveMonth(LocalDateTime monthStart, LocalDateTime cutoff) throws SQLException {
+        LocalDateTime monthEnd = monthStart.plusMonths(1);
+        return TransactionExecutor.getInstance().inTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                // One archiver at a time across clients; released at commit
+                stmt.execute("SELECT pg_advisory_xact_lock(hashtext('trip-archiver'))");
+            }
+
+            ensurePartition(conn, "schedules_archive", monthStart);
+            try (PreparedStatement stmt = conn.prepareStatement(BOOKING_MONTHS_SQL)) {
+                stmt.setObject(1, cutoff);
+                stmt.setObject(2, monthStart);
+                stmt.setObject(3, monthEnd);
+                List<LocalDateTime> bookingMonths = new ArrayList<>();
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        bookingMonths.add(rs.getObject(1, LocalDateTime.class));
+                    }
+                }
+                for (LocalDateTime m : bookingMonths) {
+                    ensurePartition(conn, "bookings_archive", m);
+                }
+            }
+
+            long[] moved = new long[2];
+            try (PreparedStatement stmt = conn.prepareStatement(MOVE_BOOKINGS_SQL)) {
+                stmt.setObject(1, cutoff);
+                stmt.setObject(2, monthStart);
+                stmt.setObject(3, monthEnd);
+                moved[1] = stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(MOVE_SCHEDULES_SQL)) {
+                stmt.setObject(1, cutoff);
+                stmt.setObject(2, monthStart);
+                stmt.setObject(3, monthEnd);
+                moved[0] = stmt.executeUpdate();
+            }
+            return moved;
+        });
+    }
+
+    // e.g. bookings_archive_2025_03 for [2025-03-01, 2025-04-01)
+    private static void ensurePartition(Connection conn, String parent, LocalDateTime monthStart) throws SQLException {
+        LocalDate from = monthStart.toLocalDate().withDayOfMonth(1);
+        String sql = String.format("CREATE TABLE IF NOT EXISTS %s_%04d_%02d PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                parent, from.getYear(), from.getMonthValue(), parent, from, from.plusMonths(1));
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static String prefixed(String alias, String columns) {
+        return alias + columns.replace(", ", ", " + alias);
+    }
+}
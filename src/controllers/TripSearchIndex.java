@@ -0,0 +1,274 @@
+package controllers;
+
+import db.DatabaseConnection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.Schedule;
+
+/**
+ * In-process index of upcoming departures: (from, to) city id pair -> schedules sorted by
+ * departure time. Arrays are copy-on-write, so searches are a hash lookup plus a binary search with no
+ * locking and no database round trip.
+ *
+ * Changes made through this process (schedule edits, bookings, cancellations) are applied incrementally.
+ * Anything else (other clients, expired holds, route renames) is picked up by a full reload every
+ * refreshMs; if the last reload is older than maxStalenessMs the index reports itself stale and the
+ * caller should go to the database instead.
+ */
+class TripSearchIndex {
+
+    private static final Comparator<Schedule> BY_DEPARTURE =
+            Comparator.comparing(Schedule::getDepartureTime).thenComparing(Schedule::getId);
+
+    private static final String LOAD_SQL = "SELECT s.*, b.bus_number, b.total_seats, b.type, b.is_operational, " +
+            "r.source_city, r.destination_city, r.distance_km, r.estimated_duration, " +
+            "r.source_city_id, r.destination_city_id " +
+            "FROM schedules s " +
+            "JOIN buses b ON s.bus_id = b.id " +
+            "JOIN routes r ON s.route_id = r.id " +
+            "WHERE s.departure_time >= ? " +
+            "AND r.source_city_id IS NOT NULL AND r.destination_city_id IS NOT NULL";
+
+    private final long maxStalenessMs;
+    // Replaced wholesale by a reload, so a search never sees a half-built index
+    private volatile Map<Long, Schedule[]> byPair = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> pairById = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+    private volatile long loadedAt; // 0 = never loaded or invalidated
+    private final AtomicInteger invalidations = new AtomicInteger();
+    // Updates made while a reload is reading, replayed after it swaps the maps in; null when not reloading
+    private List<Runnable> duringLoad;
+
+    TripSearchIndex(long refreshMs, long maxStalenessMs) {
+        this.maxStalenessMs = maxStalenessMs;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "trip-search-index");
+            t.setDaemon(true);
+            return t;
+        });
+        refresher.scheduleWithFixedDelay(this::reload, 0, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    boolean isFresh() {
+        long at = loadedAt;
+        return at != 0 && System.currentTimeMillis() - at <= maxStalenessMs;
+    }
+
+    long getLoadedAt() { return loadedAt; }
+
+    int size() { return pairById.size(); }
+
+    // Same contract as ScheduleController.searchTrips; returns copies so callers can't change the index
+    List<Schedule> search(int fromCityId, int toCityId, LocalDateTime departAfter, LocalDateTime departBefore,
+            int limit) {
+        Schedule[] trips = byPair.get(key(fromCityId, toCityId));
+        List<Schedule> results = new ArrayList<>();
+        if (trips == null) {
+            return results;
+        }
+        for (int i = firstAtOrAfter(trips, departAfter); i < trips.length; i++) {
+            if (departBefore != null && !trips[i].getDepartureTime().isBefore(departBefore)) {
+                break;
+            }
+            if (limit > 0 && results.size() >= limit) {
+                break;
+            }
+            results.add(copy(trips[i]));
+        }
+        return results;
+    }
+
+    // Insert or replace (also moves the schedule if its route changed); the ids are those stored on the route
+    synchronized void put(Schedule schedule, int fromCityId, int toCityId) {
+        Schedule snapshot = copy(schedule);
+        if (duringLoad != null) {
+            duringLoad.add(() -> put(snapshot, fromCityId, toCityId));
+        }
+        unindex(schedule.getId());
+        // ids read as 0 from routes the dictionary backfill hasn't reached
+        if (schedule.getDepartureTime().isBefore(LocalDateTime.now()) || fromCityId <= 0 || toCityId <= 0) {
+            return;
+        }
+        Long key = key(fromCityId, toCityId);
+        Schedule[] old = byPair.getOrDefault(key, new Schedule[0]);
+        int at = Arrays.binarySearch(old, snapshot, BY_DEPARTURE);
+        at = at < 0 ? -at - 1 : at;
+        Schedule[] updated = new Schedule[old.length + 1];
+        System.arraycopy(old, 0, updated, 0, at);
+        updated[at] = snapshot;
+        System.arraycopy(old, at, updated, at + 1, old.length - at);
+        byPair.put(key, updated);
+        pairById.put(schedule.getId(), key);
+    }
+
+    synchronized void remove(Long scheduleId) {
+        if (duringLoad != null) {
+            duringLoad.add(() -> remove(scheduleId));
+        }
+        unindex(scheduleId);
+    }
+
+    private void unindex(Long scheduleId) {
+        Long key = pairById.remove(scheduleId);
+        if (key == null) {
+            return;
+        }
+        Schedule[] old = byPair.get(key);
+        int at = indexOf(old, scheduleId);
+        if (at < 0) {
+            return;
+        }
+        if (old.length == 1) {
+            byPair.remove(key);
+            return;
+        }
+        Schedule[] updated = new Schedule[old.length - 1];
+        System.arraycopy(old, 0, updated, 0, at);
+        System.arraycopy(old, at + 1, updated, at, old.length - at - 1);
+        byPair.put(key, updated);
+    }
+
+    // delta < 0 for bookings, > 0 for cancellations
+    synchronized void adjustSeats(Long scheduleId, int delta) {
+        if (duringLoad != null) {
+            duringLoad.add(() -> adjustSeats(scheduleId, delta));
+        }
+        Long key = pairById.get(scheduleId);
+        if (key == null) {
+            return;
+        }
+        Schedule[] updated = byPair.get(key).clone();
+        int at = indexOf(updated, scheduleId);
+        if (at < 0) {
+            return;
+        }
+        Schedule snapshot = copy(updated[at]);
+        snapshot.setAvailableSeats(Math.max(0, snapshot.getAvailableSeats() + delta));
+        updated[at] = snapshot;
+        byPair.put(key, updated);
+    }
+
+    // For bulk changes we don't track row by row; searches use the database until the reload finishes
+    void invalidate() {
+        invalidations.incrementAndGet();
+        loadedAt = 0;
+        refresher.execute(this::reload);
+    }
+
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void reload() {
+        long started = System.currentTimeMillis();
+        int generation = invalidations.get();
+        // Recording starts before the query takes its snapshot, so no change is missed; one committed just
+        // before the snapshot is applied twice (harmless except for seat deltas, off by one until next reload)
+        synchronized (this) {
+            duringLoad = new ArrayList<>();
+        }
+        try {
+            load(started, generation);
+        } finally {
+            synchronized (this) {
+                duringLoad = null;
+            }
+        }
+    }
+
+    private void load(long started, int generation) {
+        Map<Long, List<Schedule>> grouped = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                return;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(LOAD_SQL)) {
+                stmt.setObject(1, LocalDateTime.now());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    ScheduleRowMapper mapper = new ScheduleRowMapper(rs, "id");
+                    int sourceCityId = rs.findColumn("source_city_id");
+                    int destinationCityId = rs.findColumn("destination_city_id");
+                    while (rs.next()) {
+                        Long key = key(rs.getInt(sourceCityId), rs.getInt(destinationCityId));
+                        grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(mapper.map(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace(); // keep serving the previous data until it goes stale
+            return;
+        }
+
+        Map<Long, Schedule[]> pairs = new ConcurrentHashMap<>();
+        Map<Long, Long> ids = new ConcurrentHashMap<>();
+        for (Map.Entry<Long, List<Schedule>> e : grouped.entrySet()) {
+            Schedule[] trips = e.getValue().toArray(new Schedule[0]);
+            Arrays.sort(trips, BY_DEPARTURE);
+            pairs.put(e.getKey(), trips);
+            for (Schedule s : trips) {
+                ids.put(s.getId(), e.getKey());
+            }
+        }
+
+        // Replay what changed while loading onto the new maps
+        synchronized (this) {
+            byPair = pairs;
+            pairById = ids;
+            List<Runnable> missed = duringLoad;
+            duringLoad = null;
+            missed.forEach(Runnable::run);
+            if (generation == invalidations.get()) { // invalidated mid-load: wait for the queued reload
+                loadedAt = started;
+            }
+        }
+    }
+
+    // Both city ids packed into one long
+    private static long key(int fromCityId, int toCityId) {
+        return (long) fromCityId << 32 | (toCityId & 0xFFFFFFFFL);
+    }
+
+    private static int firstAtOrAfter(Schedule[] trips, LocalDateTime t) {
+        int lo = 0;
+        int hi = trips.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (trips[mid].getDepartureTime().isBefore(t)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int indexOf(Schedule[] trips, Long scheduleId) {
+        for (int i = 0; i < trips.length; i++) {
+            if (trips[i].getId().equals(scheduleId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static Schedule copy(Schedule s) {
+        Schedule c = new Schedule(s.getId(), s.getBus(), s.getRoute(), s.getDepartureTime(), s.getArrivalTime(),
+                s.getTicketPrice());
+        c.setAvailableSeats(s.getAvailableSeats());
+        return c;
+    }
+}
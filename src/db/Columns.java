@@ -0,0 +1,31 @@
+package db;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column label to index lookup for one ResultSet, built once from its metadata so mappers can read
+ * every row by index instead of searching for each column by name.
+ */
+public class Columns {
+
+    private final Map<String, Integer> indexes = new HashMap<>();
+
+    public Columns(ResultSet rs) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = meta.getColumnCount(); i >= 1; i--) {
+            indexes.put(meta.getColumnLabel(i).toLowerCase(), i); // first occurrence wins, as with getXxx(label)
+        }
+    }
+
+    public int of(String label) throws SQLException {
+        Integer index = indexes.get(label.toLowerCase());
+        if (index == null) {
+            throw new SQLException("Column not in result set: " + label);
+        }
+        return index;
+    }
+}
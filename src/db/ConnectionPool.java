@@ -0,0 +1,368 @@
+package db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Small bounded JDBC connection pool. Borrowed connections are handed out as proxies whose
+ * close() returns the physical connection to the pool instead of closing the socket.
+ */
+public class ConnectionPool {
+
+    // Pool settings; defaults can be overridden with -Ddb.pool.<name>=value
+    public static class Config {
+        public int minIdle = Integer.getInteger("db.pool.minIdle", 2);
+        public int maxSize = Integer.getInteger("db.pool.maxSize", 10);
+        public long acquireTimeoutMs = Long.getLong("db.pool.acquireTimeoutMs", 5_000L);
+        public long idleTimeoutMs = Long.getLong("db.pool.idleTimeoutMs", 300_000L);
+        public long maxLifetimeMs = Long.getLong("db.pool.maxLifetimeMs", 1_800_000L);
+        public long leakThresholdMs = Long.getLong("db.pool.leakThresholdMs", 30_000L);
+        public long housekeepingMs = Long.getLong("db.pool.housekeepingMs", 30_000L);
+        public int validationTimeoutSec = Integer.getInteger("db.pool.validationTimeoutSec", 2);
+    }
+
+    // A physical connection plus the bookkeeping the pool needs for it
+    private static class Entry {
+        final Connection raw;
+        final long createdAt;
+        long lastReturnedAt;
+        long borrowedAt;
+        Throwable borrowTrace;
+        boolean leakReported;
+
+        Entry(Connection raw) {
+            this.raw = raw;
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Config config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<Entry> idle = new ArrayDeque<>();
+    private final Set<Entry> borrowed = ConcurrentHashMap.newKeySet();
+    private int totalCount; // idle + borrowed + connections being opened
+    private boolean shutdown;
+
+    private final ScheduledExecutorService housekeeper;
+
+    public ConnectionPool(String url, String user, String password, Config config) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.config = config;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, config.housekeepingMs, config.housekeepingMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        long deadline = System.currentTimeMillis() + config.acquireTimeoutMs;
+        while (true) {
+            Entry entry = null;
+            boolean mayOpen = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (shutdown) {
+                        throw new SQLException("Connection pool is shut down.");
+                    }
+                    entry = idle.pollFirst(); // LIFO keeps the warmest connections busy
+                    if (entry != null) {
+                        break;
+                    }
+                    if (totalCount < config.maxSize) {
+                        totalCount++;
+                        mayOpen = true;
+                        break;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new SQLException("Timed out after " + config.acquireTimeoutMs
+                                + " ms waiting for a connection (max " + config.maxSize + ").", "08001");
+                    }
+                    try {
+                        available.await(remaining, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a connection.", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (mayOpen) {
+                try {
+                    entry = new Entry(open());
+                } catch (SQLException e) {
+                    release();
+                    throw e;
+                }
+            } else if (isExpired(entry, System.currentTimeMillis()) || !isUsable(entry)) {
+                discard(entry);
+                continue;
+            }
+            return lend(entry);
+        }
+    }
+
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pollFirst().raw);
+                totalCount--;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+    }
+
+    public int getTotalCount() {
+        lock.lock();
+        try {
+            return totalCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return config.maxLifetimeMs > 0 && now - entry.createdAt >= config.maxLifetimeMs;
+    }
+
+    private boolean isUsable(Entry entry) {
+        try {
+            return entry.raw.isValid(config.validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lend(Entry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.borrowTrace = config.leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+        entry.leakReported = false;
+        borrowed.add(entry);
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new Handle(entry));
+    }
+
+    // Called when a proxy is closed; resets session state before the connection is reused
+    private void giveBack(Entry entry) {
+        borrowed.remove(entry);
+        if (entry.leakReported) {
+            System.err.println("Leaked connection was eventually returned after "
+                    + (System.currentTimeMillis() - entry.borrowedAt) + " ms.");
+        }
+        entry.borrowTrace = null;
+
+        boolean reusable;
+        try {
+            if (!entry.raw.getAutoCommit()) {
+                entry.raw.rollback();
+                entry.raw.setAutoCommit(true);
+            }
+            entry.raw.clearWarnings();
+            reusable = !entry.raw.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (!reusable || isExpired(entry, System.currentTimeMillis())) {
+            discard(entry);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                closeQuietly(entry.raw);
+                totalCount--;
+                return;
+            }
+            entry.lastReturnedAt = System.currentTimeMillis();
+            idle.offerFirst(entry);
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(Entry entry) {
+        closeQuietly(entry.raw);
+        release();
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Evicts idle/expired connections, tops the pool up to minIdle and reports suspected leaks
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        Deque<Entry> evicted = new ArrayDeque<>();
+        int toOpen = 0;
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                return;
+            }
+            // Oldest returned entries sit at the tail
+            int keep = idle.size();
+            for (Iterator<Entry> it = idle.descendingIterator(); it.hasNext();) {
+                Entry e = it.next();
+                boolean idleTooLong = config.idleTimeoutMs > 0
+                        && now - e.lastReturnedAt >= config.idleTimeoutMs
+                        && keep > config.minIdle;
+                if (idleTooLong || isExpired(e, now)) {
+                    it.remove();
+                    evicted.add(e);
+                    totalCount--;
+                    keep--;
+                }
+            }
+            toOpen = Math.min(config.minIdle - idle.size(), config.maxSize - totalCount);
+            if (toOpen > 0) {
+                totalCount += toOpen;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Entry e : evicted) {
+            closeQuietly(e.raw);
+        }
+
+        for (int i = 0; i < toOpen; i++) {
+            try {
+                Entry fresh = new Entry(open());
+                lock.lock();
+                try {
+                    idle.offerLast(fresh);
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (SQLException e) {
+                for (; i < toOpen; i++) {
+                    release();
+                }
+                System.err.println("Connection pool could not refill: " + e.getMessage());
+            }
+        }
+
+        if (config.leakThresholdMs > 0) {
+            for (Entry e : borrowed) {
+                Throwable trace = e.borrowTrace;
+                if (!e.leakReported && trace != null && now - e.borrowedAt >= config.leakThresholdMs) {
+                    e.leakReported = true;
+                    System.err.println("Possible connection leak: held for " + (now - e.borrowedAt) + " ms.");
+                    trace.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException ignored) {}
+    }
+
+    // Proxy handler for a single borrow; close() hands the connection back exactly once
+    private class Handle implements InvocationHandler {
+        private final Entry entry;
+        private boolean closed;
+
+        Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.raw.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.raw + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool.");
+            }
+            try {
+                return method.invoke(entry.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,21 +1,21 @@
 package db;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
     // Update these with your specific database details
-    private static final String URL = "jdbc:postgresql://localhost:5432/Bus_DB";
+    // reWriteBatchedInserts lets the driver send a batch of INSERTs as multi-row statements
+    private static final String URL = "jdbc:postgresql://localhost:5432/Bus_DB?reWriteBatchedInserts=true";
     private static final String USER = "admin";
     private static final String PASSWORD = "mypassword";
 
+    private static volatile ConnectionPool pool;
+
+    // Returns a pooled connection; closing it hands it back to the pool
     public static Connection getConnection() {
-        Connection conn = null;
         try {
-            // Ensure the PostgreSQL driver is loaded
-            Class.forName("org.postgresql.Driver");
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
+            return getPool().borrow();
         } catch (ClassNotFoundException e) {
             System.err.println("PostgreSQL JDBC Driver not found. Include the JAR in your library.");
             e.printStackTrace();
@@ -23,6 +23,31 @@ public class DatabaseConnection {
             System.err.println("Connection failed!");
             e.printStackTrace();
         }
-        return conn;
+        return null;
+    }
+
+    public static ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    // Ensure the PostgreSQL driver is loaded (once, not per connection)
+                    Class.forName("org.postgresql.Driver");
+                    p = new ConnectionPool(URL, USER, PASSWORD, new ConnectionPool.Config());
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    public static void shutdown() {
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
     }
 }
@@ -0,0 +1,164 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Idempotent schema additions the application relies on (constraints, indexes, helper tables).
+ * Every statement must be safe to re-run on each startup.
+ */
+public class DatabaseSchema {
+
+    // Columns copied to the archive tables and exposed by the history views
+    public static final String SCHEDULE_COLUMNS =
+            "id, bus_id, route_id, departure_time, arrival_time, ticket_price, available_seats";
+    public static final String BOOKING_COLUMNS = "id, user_id, schedule_id, seat_number, status, total_amount, " +
+            "booking_date, hold_expires_at, idempotency_key";
+
+    // Recomputes route_day_stats from every live and archived schedule and booking; only fills an empty
+    // table (ReportController.rebuildRollups empties it first)
+    public static final String ROUTE_DAY_STATS_FILL =
+            "INSERT INTO route_day_stats (route_id, day, seats_offered, seats_sold, revenue, cancellations) " +
+            "SELECT s.route_id, s.departure_time::date, SUM(COALESCE(bu.total_seats, 0)), " +
+            "SUM(COALESCE(b.sold, 0)), SUM(COALESCE(b.revenue, 0)), SUM(COALESCE(b.cancelled, 0)) " +
+            "FROM schedules_history s " +
+            "LEFT JOIN buses bu ON bu.id = s.bus_id " +
+            "LEFT JOIN (SELECT schedule_id, COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS sold, " +
+            "    COALESCE(SUM(total_amount) FILTER (WHERE status = 'CONFIRMED'), 0) AS revenue, " +
+            "    COUNT(*) FILTER (WHERE status = 'CANCELLED') AS cancelled " +
+            "    FROM bookings_history GROUP BY schedule_id) b ON b.schedule_id = s.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM route_day_stats) " +
+            "GROUP BY s.route_id, s.departure_time::date";
+
+    private static final String[] STATEMENTS = {
+            // Seat holds are PENDING bookings that expire at hold_expires_at
+            "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS hold_expires_at TIMESTAMP",
+            "CREATE INDEX IF NOT EXISTS ix_bookings_pending_expiry " +
+                    "ON bookings (hold_expires_at) WHERE status = 'PENDING'",
+
+            // At most one live booking (confirmed or held) per seat on a departure;
+            // cancelled rows do not block re-booking
+            "DROP INDEX IF EXISTS ux_bookings_schedule_seat",
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_bookings_schedule_seat_live " +
+                    "ON bookings (schedule_id, seat_number) WHERE status IN ('CONFIRMED', 'PENDING')",
+
+            // Client-supplied idempotency keys, scoped to the customer that sent them; one key may cover
+            // several seats of a group booking
+            "ALTER TABLE bookings ADD COLUMN IF NOT EXISTS idempotency_key VARCHAR(64)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS ux_bookings_user_idempotency_key " +
+                    "ON bookings (user_id, idempotency_key, seat_number) WHERE idempotency_key IS NOT NULL",
+            "DROP INDEX IF EXISTS ux_bookings_idempotency_key",
+
+            // Keyset pagination of booking history, newest first: (booking_date, id) < cursor
+            "CREATE INDEX IF NOT EXISTS ix_bookings_user_recent ON bookings (user_id, booking_date DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS ix_bookings_recent ON bookings (booking_date DESC, id DESC)",
+
+            // City dictionary: routes reference cities by id; name_key is the trimmed, single-spaced,
+            // lower-case spelling (see CityDictionary.key)
+            "CREATE TABLE IF NOT EXISTS cities (" +
+                    "id SERIAL PRIMARY KEY, name VARCHAR(100) NOT NULL, name_key VARCHAR(100) NOT NULL UNIQUE)",
+            "ALTER TABLE routes ADD COLUMN IF NOT EXISTS source_city_id INT REFERENCES cities (id)",
+            "ALTER TABLE routes ADD COLUMN IF NOT EXISTS destination_city_id INT REFERENCES cities (id)",
+            // Backfill routes written before the dictionary existed (or by older clients)
+            "INSERT INTO cities (name, name_key) " +
+                    "SELECT DISTINCT ON (k) n, k FROM (" +
+                    "    SELECT n, LOWER(n) AS k FROM (SELECT REGEXP_REPLACE(TRIM(c), '\\s+', ' ', 'g') AS n FROM (" +
+                    "        SELECT source_city AS c FROM routes WHERE source_city_id IS NULL " +
+                    "        UNION ALL SELECT destination_city FROM routes WHERE destination_city_id IS NULL) raw) trimmed" +
+                    ") names ORDER BY k, n ON CONFLICT (name_key) DO NOTHING",
+            "UPDATE routes r SET source_city_id = c.id FROM cities c " +
+                    "WHERE r.source_city_id IS NULL AND c.name_key = LOWER(REGEXP_REPLACE(TRIM(r.source_city), '\\s+', ' ', 'g'))",
+            "UPDATE routes r SET destination_city_id = c.id FROM cities c " +
+                    "WHERE r.destination_city_id IS NULL AND c.name_key = LOWER(REGEXP_REPLACE(TRIM(r.destination_city), '\\s+', ' ', 'g'))",
+
+            // Trip search: city id pair -> route, then a departure_time range per route
+            "DROP INDEX IF EXISTS ix_routes_city_pair",
+            "CREATE INDEX IF NOT EXISTS ix_routes_city_ids ON routes (source_city_id, destination_city_id)",
+            "CREATE INDEX IF NOT EXISTS ix_schedules_route_departure ON schedules (route_id, departure_time)",
+
+            // A bus can't run two trips at once. The app checks this against its per-bus interval index;
+            // the constraint catches writes that raced past it. Fails (and is skipped) while legacy
+            // overlapping rows remain, or if the btree_gist extension can't be installed.
+            "CREATE INDEX IF NOT EXISTS ix_schedules_bus_departure ON schedules (bus_id, departure_time)",
+            "CREATE EXTENSION IF NOT EXISTS btree_gist",
+            "DO $$ BEGIN " +
+                    "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'ex_schedules_bus_overlap') THEN " +
+                    "ALTER TABLE schedules ADD CONSTRAINT ex_schedules_bus_overlap " +
+                    "EXCLUDE USING gist (bus_id WITH =, tsrange(departure_time, arrival_time) WITH &&); " +
+                    "END IF; END $$",
+
+            // Archive of finished trips (see TripArchiver): same columns as the live tables, range partitioned
+            // by month so old months stay cheap to query, detach or drop. The live tables keep only current
+            // and recent rows, so their indexes stay small. The default partitions only catch rows with no
+            // date; the archiver creates each month's partition before moving rows into it.
+            "CREATE TABLE IF NOT EXISTS schedules_archive (LIKE schedules) PARTITION BY RANGE (departure_time)",
+            "CREATE TABLE IF NOT EXISTS schedules_archive_default PARTITION OF schedules_archive DEFAULT",
+            "CREATE INDEX IF NOT EXISTS ix_schedules_archive_id ON schedules_archive (id)",
+            "CREATE TABLE IF NOT EXISTS bookings_archive (LIKE bookings) PARTITION BY RANGE (booking_date)",
+            "CREATE TABLE IF NOT EXISTS bookings_archive_default PARTITION OF bookings_archive DEFAULT",
+            "CREATE INDEX IF NOT EXISTS ix_bookings_archive_id ON bookings_archive (id)",
+            "CREATE INDEX IF NOT EXISTS ix_bookings_archive_user_recent " +
+                    "ON bookings_archive (user_id, booking_date DESC, id DESC)",
+            "CREATE INDEX IF NOT EXISTS ix_bookings_archive_recent ON bookings_archive (booking_date DESC, id DESC)",
+
+            // History reads (booking lists, exports) go through these; live paths keep using the base tables
+            "CREATE OR REPLACE VIEW schedules_history AS " +
+                    "SELECT " + SCHEDULE_COLUMNS + " FROM schedules " +
+                    "UNION ALL SELECT " + SCHEDULE_COLUMNS + " FROM schedules_archive",
+            "CREATE OR REPLACE VIEW bookings_history AS " +
+                    "SELECT " + BOOKING_COLUMNS + " FROM bookings " +
+                    "UNION ALL SELECT " + BOOKING_COLUMNS + " FROM bookings_archive",
+
+            // Occupancy and revenue per route per departure day. Booking and schedule writes append deltas
+            // to the log, which ReportController folds into route_day_stats in the background, so no
+            // booking waits on a shared counter row (see ReportController). No foreign keys, so archived
+            // days survive.
+            "CREATE TABLE IF NOT EXISTS route_day_stats (" +
+                    "route_id BIGINT NOT NULL, day DATE NOT NULL, " +
+                    "seats_offered INT NOT NULL DEFAULT 0, seats_sold INT NOT NULL DEFAULT 0, " +
+                    "revenue NUMERIC(12, 2) NOT NULL DEFAULT 0, cancellations INT NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (route_id, day))",
+            "CREATE INDEX IF NOT EXISTS ix_route_day_stats_day ON route_day_stats (day)",
+            "CREATE TABLE IF NOT EXISTS route_day_stats_log (" +
+                    "id BIGSERIAL PRIMARY KEY, route_id BIGINT NOT NULL, day DATE NOT NULL, " +
+                    "seats_offered INT NOT NULL DEFAULT 0, seats_sold INT NOT NULL DEFAULT 0, " +
+                    "revenue NUMERIC(12, 2) NOT NULL DEFAULT 0, cancellations INT NOT NULL DEFAULT 0)",
+            "CREATE INDEX IF NOT EXISTS ix_route_day_stats_log_day ON route_day_stats_log (day)",
+            ROUTE_DAY_STATS_FILL,
+    };
+
+    private static volatile boolean installed;
+
+    public static void ensureInstalled() {
+        if (installed) {
+            return;
+        }
+        synchronized (DatabaseSchema.class) {
+            if (installed) {
+                return;
+            }
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) {
+                    System.err.println("No DB connection; schema not checked.");
+                    return;
+                }
+                // Run each statement on its own so one failure (e.g. duplicate legacy rows) doesn't block the rest
+                try (Statement stmt = conn.createStatement()) {
+                    for (String sql : STATEMENTS) {
+                        try {
+                            stmt.execute(sql);
+                        } catch (SQLException e) {
+                            System.err.println("Schema statement failed: " + sql);
+                            e.printStackTrace();
+                        }
+                    }
+                }
+                installed = true;
+            } catch (SQLException e) {
+                System.err.println("Schema setup failed!");
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package db;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One instance per entity id for the lifetime of the map (typically one query). Rows that share a
+ * schedule, bus, route or customer then share the same object instead of each carrying a copy.
+ * Not thread-safe.
+ */
+public class IdentityMap {
+
+    private final Map<Class<?>, Map<Long, Object>> byType = new HashMap<>();
+
+    public <T> T get(Class<T> type, long id) {
+        Map<Long, Object> entities = byType.get(type);
+        return entities == null ? null : type.cast(entities.get(id));
+    }
+
+    public <T> T put(Class<T> type, long id, T entity) {
+        byType.computeIfAbsent(type, k -> new HashMap<>()).put(id, entity);
+        return entity;
+    }
+
+    public int size() {
+        int n = 0;
+        for (Map<Long, Object> entities : byType.values()) {
+            n += entities.size();
+        }
+        return n;
+    }
+
+    public void clear() {
+        byType.clear();
+    }
+}
@@ -0,0 +1,166 @@
+package db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a unit of database work on a pooled connection and retries it when Postgres aborts it for a
+ * reason that a clean re-run can fix (serialization failure, deadlock). Retries back off exponentially
+ * with full jitter and stop when either the attempt limit or the time budget is used up.
+ */
+public class TransactionExecutor {
+
+    // A unit of work; it may run more than once, so it must not have side effects outside the connection
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private static TransactionExecutor instance;
+
+    private final int maxAttempts = Integer.getInteger("db.retry.maxAttempts", 5);
+    private final long baseDelayMs = Long.getLong("db.retry.baseDelayMs", 10L);
+    private final long maxDelayMs = Long.getLong("db.retry.maxDelayMs", 500L);
+    private final long budgetMs = Long.getLong("db.retry.budgetMs", 2_000L);
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder retriedSuccesses = new LongAdder();
+    private final LongAdder giveUps = new LongAdder();
+    private final Map<String, LongAdder> retriesBySqlState = new ConcurrentHashMap<>();
+
+    private TransactionExecutor() {}
+
+    public static synchronized TransactionExecutor getInstance() {
+        if (instance == null) instance = new TransactionExecutor();
+        return instance;
+    }
+
+    // SQLSTATEs where the whole transaction was rolled back by the server and can simply be re-run
+    public static boolean isRetryable(SQLException e) {
+        for (SQLException cur = e; cur != null; cur = cur.getNextException()) {
+            String state = cur.getSQLState();
+            if ("40001".equals(state) || "40P01".equals(state)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs work inside a transaction: commit on return, rollback on exception
+    public <T> T inTransaction(Work<T> work) throws SQLException {
+        return run(work, true);
+    }
+
+    // Runs work in autocommit mode; for single statements that are atomic on their own
+    public <T> T execute(Work<T> work) throws SQLException {
+        return run(work, false);
+    }
+
+    private <T> T run(Work<T> work, boolean transactional) throws SQLException {
+        executions.increment();
+        long deadline = System.currentTimeMillis() + budgetMs;
+        int attempt = 1;
+        while (true) {
+            try {
+                T result = attempt(work, transactional);
+                if (attempt > 1) {
+                    retriedSuccesses.increment();
+                }
+                return result;
+            } catch (SQLException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                long delay = backoff(attempt);
+                if (attempt >= maxAttempts || System.currentTimeMillis() + delay > deadline) {
+                    giveUps.increment();
+                    throw e;
+                }
+                retries.increment();
+                retriesBySqlState.computeIfAbsent(String.valueOf(e.getSQLState()), k -> new LongAdder()).increment();
+                sleep(delay);
+                attempt++;
+            }
+        }
+    }
+
+    private <T> T attempt(Work<T> work, boolean transactional) throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("No DB connection available.", "08001");
+        }
+        try {
+            if (!transactional) {
+                return work.run(conn);
+            }
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    e.addSuppressed(ex);
+                }
+                throw e;
+            }
+        } finally {
+            try {
+                if (transactional) {
+                    conn.setAutoCommit(true);
+                }
+                conn.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(maxDelay, base * 2^(attempt-1))]
+    private long backoff(int attempt) {
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while backing off before retry.", e);
+        }
+    }
+
+    // --- Metrics ---
+    public long getExecutions() { return executions.sum(); }
+    public long getRetries() { return retries.sum(); }
+    public long getRetriedSuccesses() { return retriedSuccesses.sum(); }
+    public long getGiveUps() { return giveUps.sum(); }
+
+    // Share of executions that ran out of retries
+    public double getGiveUpRate() {
+        long n = executions.sum();
+        return n == 0 ? 0 : (double) giveUps.sum() / n;
+    }
+
+    public Map<String, Long> getRetriesBySqlState() {
+        Map<String, Long> out = new TreeMap<>();
+        retriesBySqlState.forEach((state, count) -> out.put(state, count.sum()));
+        return out;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("executions=%d retries=%d retriedSuccesses=%d giveUps=%d (%.2f%%) bySqlState=%s",
+                getExecutions(), getRetries(), getRetriedSuccesses(), getGiveUps(), getGiveUpRate() * 100,
+                getRetriesBySqlState());
+    }
+}
@@ -9,6 +9,7 @@ public class Booking {
     private String seatNumber; // e.g., "A1", "B4"
     private String status; // "CONFIRMED", "CANCELLED", "PENDING"
     private BigDecimal totalAmount;
+    private String idempotencyKey; // Client-supplied; retries with the same key return the original booking
 
     // Relationships
     private User customer;
@@ -40,6 +41,9 @@ public class Booking {
     public BigDecimal getTotalAmount() { return totalAmount; }
     public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
 
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
     public User getCustomer() { return customer; }
     public void setCustomer(User customer) { this.customer = customer; }
 
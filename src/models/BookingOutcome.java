@@ -0,0 +1,11 @@
+package models;
+
+// Result of a single booking attempt, so callers can tell the user why it failed
+public enum BookingOutcome {
+    BOOKED,
+    SOLD_OUT,   // No seats left on the schedule
+    SEAT_TAKEN, // The requested seat already has a confirmed booking
+    FAILED;     // Database/connection error
+
+    public boolean isBooked() { return this == BOOKED; }
+}
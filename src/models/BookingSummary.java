@@ -0,0 +1,44 @@
+package models;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only view of a booking for listings: just what the screens show, no customer credentials
+public class BookingSummary {
+    private final Long id;
+    private final LocalDateTime bookingDate;
+    private final String status;
+    private final String seatNumber;
+    private final BigDecimal totalAmount;
+    private final Long scheduleId;
+    private final LocalDateTime departureTime;
+    private final String sourceCity;
+    private final String destinationCity;
+    private final String customerName; // Only filled in for admin listings
+
+    public BookingSummary(Long id, LocalDateTime bookingDate, String status, String seatNumber, BigDecimal totalAmount,
+            Long scheduleId, LocalDateTime departureTime, String sourceCity, String destinationCity,
+            String customerName) {
+        this.id = id;
+        this.bookingDate = bookingDate;
+        this.status = status;
+        this.seatNumber = seatNumber;
+        this.totalAmount = totalAmount;
+        this.scheduleId = scheduleId;
+        this.departureTime = departureTime;
+        this.sourceCity = sourceCity;
+        this.destinationCity = destinationCity;
+        this.customerName = customerName;
+    }
+
+    public Long getId() { return id; }
+    public LocalDateTime getBookingDate() { return bookingDate; }
+    public String getStatus() { return status; }
+    public String getSeatNumber() { return seatNumber; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public Long getScheduleId() { return scheduleId; }
+    public LocalDateTime getDepartureTime() { return departureTime; }
+    public String getSourceCity() { return sourceCity; }
+    public String getDestinationCity() { return destinationCity; }
+    public String getCustomerName() { return customerName; }
+}
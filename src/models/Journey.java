@@ -0,0 +1,47 @@
+package models;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+// An itinerary of one or more schedules; each leg departs from the city where the previous one arrives
+public class Journey {
+    private final List<Schedule> legs;
+
+    public Journey(List<Schedule> legs) {
+        this.legs = Collections.unmodifiableList(legs);
+    }
+
+    public List<Schedule> getLegs() { return legs; }
+
+    public int getTransfers() { return legs.size() - 1; }
+
+    public LocalDateTime getDepartureTime() { return legs.get(0).getDepartureTime(); }
+
+    public LocalDateTime getArrivalTime() { return legs.get(legs.size() - 1).getArrivalTime(); }
+
+    public Duration getDuration() { return Duration.between(getDepartureTime(), getArrivalTime()); }
+
+    public BigDecimal getTotalPrice() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Schedule leg : legs) {
+            total = total.add(leg.getTicketPrice());
+        }
+        return total;
+    }
+
+    // Same legs in the same order
+    public boolean sameLegsAs(Journey other) {
+        if (other == null || other.legs.size() != legs.size()) {
+            return false;
+        }
+        for (int i = 0; i < legs.size(); i++) {
+            if (!legs.get(i).getId().equals(other.legs.get(i).getId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,68 @@
+package models;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Repeating timetable entry: every selected weekday between startDate and endDate (inclusive),
+// minus any exclusion dates (holidays, maintenance days)
+public class Recurrence {
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final Set<DayOfWeek> days;
+    private final Set<LocalDate> exclusions = new HashSet<>();
+
+    public Recurrence(LocalDate startDate, LocalDate endDate, Set<DayOfWeek> days) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date " + endDate + " is before start date " + startDate);
+        }
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.days = days.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(days);
+    }
+
+    public static Recurrence daily(LocalDate startDate, LocalDate endDate) {
+        return new Recurrence(startDate, endDate, EnumSet.allOf(DayOfWeek.class));
+    }
+
+    public static Recurrence weekly(LocalDate startDate, LocalDate endDate, DayOfWeek first, DayOfWeek... rest) {
+        return new Recurrence(startDate, endDate, EnumSet.of(first, rest));
+    }
+
+    public void exclude(LocalDate date) { exclusions.add(date); }
+
+    public LocalDate getStartDate() { return startDate; }
+    public LocalDate getEndDate() { return endDate; }
+    public Set<DayOfWeek> getDays() { return days; }
+    public Set<LocalDate> getExclusions() { return exclusions; }
+
+    public List<LocalDate> dates() {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate d = startDate; !d.isAfter(endDate); d = d.plusDays(1)) {
+            if (days.contains(d.getDayOfWeek()) && !exclusions.contains(d)) {
+                dates.add(d);
+            }
+        }
+        return dates;
+    }
+
+    // One new schedule per date with the template's bus, route, price, time of day and trip length
+    public List<Schedule> expand(Schedule template) {
+        Duration tripLength = Duration.between(template.getDepartureTime(), template.getArrivalTime());
+        List<Schedule> schedules = new ArrayList<>();
+        for (LocalDate d : dates()) {
+            Schedule s = new Schedule(null, template.getBus(), template.getRoute(),
+                    d.atTime(template.getDepartureTime().toLocalTime()),
+                    d.atTime(template.getDepartureTime().toLocalTime()).plus(tripLength),
+                    template.getTicketPrice());
+            s.setAvailableSeats(template.getBus().getTotalSeats());
+            schedules.add(s);
+        }
+        return schedules;
+    }
+}
@@ -0,0 +1,42 @@
+package models;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// One route on one departure day, as kept in the route_day_stats rollup
+public class RouteDayStats {
+    private final Long routeId;
+    private final String sourceCity;
+    private final String destinationCity;
+    private final LocalDate day;
+    private final int seatsOffered;
+    private final int seatsSold;
+    private final BigDecimal revenue;
+    private final int cancellations;
+
+    public RouteDayStats(Long routeId, String sourceCity, String destinationCity, LocalDate day, int seatsOffered,
+            int seatsSold, BigDecimal revenue, int cancellations) {
+        this.routeId = routeId;
+        this.sourceCity = sourceCity;
+        this.destinationCity = destinationCity;
+        this.day = day;
+        this.seatsOffered = seatsOffered;
+        this.seatsSold = seatsSold;
+        this.revenue = revenue;
+        this.cancellations = cancellations;
+    }
+
+    public Long getRouteId() { return routeId; }
+    public String getSourceCity() { return sourceCity; }
+    public String getDestinationCity() { return destinationCity; }
+    public LocalDate getDay() { return day; }
+    public int getSeatsOffered() { return seatsOffered; }
+    public int getSeatsSold() { return seatsSold; }
+    public BigDecimal getRevenue() { return revenue; }
+    public int getCancellations() { return cancellations; }
+
+    // Share of offered seats that were sold; 0 when nothing ran that day
+    public double getLoadFactor() {
+        return seatsOffered == 0 ? 0 : (double) seatsSold / seatsOffered;
+    }
+}
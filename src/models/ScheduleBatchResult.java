@@ -0,0 +1,25 @@
+package models;
+
+import java.util.List;
+
+// Outcome of a bulk schedule write: rows inserted (with their new ids) and rows left out because the bus
+// was already on the road at that time
+public class ScheduleBatchResult {
+    private final List<Schedule> created;
+    private final List<Schedule> skipped;
+    private final List<ScheduleConflict> conflicts;
+
+    public ScheduleBatchResult(List<Schedule> created, List<Schedule> skipped, List<ScheduleConflict> conflicts) {
+        this.created = created;
+        this.skipped = skipped;
+        this.conflicts = conflicts;
+    }
+
+    // Getters
+    public List<Schedule> getCreated() { return created; }
+    public List<Schedule> getSkipped() { return skipped; }
+    // Every clash behind the skipped schedules; one schedule may clash with several trips
+    public List<ScheduleConflict> getConflicts() { return conflicts; }
+    public int getCreatedCount() { return created.size(); }
+    public int getSkippedCount() { return skipped.size(); }
+}
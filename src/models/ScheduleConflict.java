@@ -0,0 +1,41 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// A proposed schedule that would put its bus on two trips at once; the other trip is either an existing
+// schedule or another schedule from the same request (conflictingId is null if it hasn't been saved)
+public class ScheduleConflict {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final Schedule proposed;
+    private final Long conflictingId;
+    private final LocalDateTime conflictingDeparture;
+    private final LocalDateTime conflictingArrival;
+    private final boolean sameRequest;
+
+    public ScheduleConflict(Schedule proposed, Long conflictingId, LocalDateTime conflictingDeparture,
+            LocalDateTime conflictingArrival, boolean sameRequest) {
+        this.proposed = proposed;
+        this.conflictingId = conflictingId;
+        this.conflictingDeparture = conflictingDeparture;
+        this.conflictingArrival = conflictingArrival;
+        this.sameRequest = sameRequest;
+    }
+
+    // Getters
+    public Schedule getProposed() { return proposed; }
+    public Long getConflictingId() { return conflictingId; }
+    public LocalDateTime getConflictingDeparture() { return conflictingDeparture; }
+    public LocalDateTime getConflictingArrival() { return conflictingArrival; }
+    public boolean isSameRequest() { return sameRequest; }
+
+    @Override
+    public String toString() {
+        String other = sameRequest ? "another new trip"
+                : conflictingId != null ? "schedule #" + conflictingId : "an existing trip";
+        return "Bus " + proposed.getBus().getBusNumber() + ": " + proposed.getDepartureTime().format(FORMAT)
+                + " - " + proposed.getArrivalTime().format(FORMAT) + " overlaps " + other + " ("
+                + conflictingDeparture.format(FORMAT) + " - " + conflictingArrival.format(FORMAT) + ")";
+    }
+}
@@ -0,0 +1,34 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Result of one seat reservation request: PENDING bookings until checkout or expiry when expiresAt is set,
+// otherwise bookings that went straight to CONFIRMED
+public class SeatHold {
+    private final Long scheduleId;
+    private final List<Long> bookingIds;
+    private final List<String> seatNumbers;
+    private final LocalDateTime expiresAt;
+    private final BookingOutcome outcome;
+
+    public SeatHold(Long scheduleId, List<Long> bookingIds, List<String> seatNumbers, LocalDateTime expiresAt,
+            BookingOutcome outcome) {
+        this.scheduleId = scheduleId;
+        this.bookingIds = bookingIds;
+        this.seatNumbers = seatNumbers;
+        this.expiresAt = expiresAt;
+        this.outcome = outcome;
+    }
+
+    // Getters
+    public Long getScheduleId() { return scheduleId; }
+    public List<Long> getBookingIds() { return bookingIds; }
+    public List<String> getSeatNumbers() { return seatNumbers; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public BookingOutcome getOutcome() { return outcome; }
+
+    public boolean isHeld() { return outcome == BookingOutcome.BOOKED; }
+
+    public boolean isExpired() { return expiresAt != null && LocalDateTime.now().isAfter(expiresAt); }
+}
@@ -0,0 +1,109 @@
+package models;
+
+import java.util.BitSet;
+
+// Compact seat inventory for one schedule. Seats are numbered 1..capacity; bit (seat - 1) is set when taken.
+public class SeatMap {
+    private final int capacity;
+    private final BitSet taken;
+
+    public SeatMap(int capacity) {
+        this(capacity, new BitSet(capacity));
+    }
+
+    private SeatMap(int capacity, BitSet taken) {
+        this.capacity = capacity;
+        this.taken = taken;
+    }
+
+    // Rebuilds a map from the bytes produced by toByteArray()
+    public static SeatMap fromByteArray(int capacity, byte[] bytes) {
+        BitSet bits = BitSet.valueOf(bytes);
+        if (bits.length() > capacity) {
+            bits.clear(capacity, bits.length());
+        }
+        return new SeatMap(capacity, bits);
+    }
+
+    public int getCapacity() { return capacity; }
+
+    public boolean isValidSeat(int seat) {
+        return seat >= 1 && seat <= capacity;
+    }
+
+    public boolean isTaken(int seat) {
+        return isValidSeat(seat) && taken.get(seat - 1);
+    }
+
+    public boolean isFree(int seat) {
+        return isValidSeat(seat) && !taken.get(seat - 1);
+    }
+
+    // Marks a seat taken; returns false if it was already taken or out of range
+    public boolean take(int seat) {
+        if (!isFree(seat)) {
+            return false;
+        }
+        taken.set(seat - 1);
+        return true;
+    }
+
+    public void release(int seat) {
+        if (isValidSeat(seat)) {
+            taken.clear(seat - 1);
+        }
+    }
+
+    public int takenCount() {
+        return taken.cardinality();
+    }
+
+    public int freeCount() {
+        return capacity - taken.cardinality();
+    }
+
+    // First free seat number, or -1 when the bus is full
+    public int firstFree() {
+        int idx = taken.nextClearBit(0);
+        return idx < capacity ? idx + 1 : -1;
+    }
+
+    // First seat of the lowest run of `size` adjacent free seats, or -1 if no such run exists
+    public int firstFreeBlock(int size) {
+        if (size <= 0 || size > capacity) {
+            return -1;
+        }
+        int start = taken.nextClearBit(0);
+        while (start + size <= capacity) {
+            int nextTaken = taken.nextSetBit(start);
+            if (nextTaken < 0 || nextTaken - start >= size) {
+                return start + 1;
+            }
+            start = taken.nextClearBit(nextTaken);
+        }
+        return -1;
+    }
+
+    // Little-endian bitmap, ceil(capacity / 8) bytes at most
+    public byte[] toByteArray() {
+        return taken.toByteArray();
+    }
+
+    // Human-friendly form of the taken seats, e.g. "1-4, 9, 12-13"
+    public String describeTaken() {
+        StringBuilder sb = new StringBuilder();
+        int start = taken.nextSetBit(0);
+        while (start >= 0 && start < capacity) {
+            int end = Math.min(taken.nextClearBit(start), capacity) - 1;
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(start + 1);
+            if (end > start) {
+                sb.append('-').append(end + 1);
+            }
+            start = taken.nextSetBit(end + 1);
+        }
+        return sb.toString();
+    }
+}
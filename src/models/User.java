@@ -18,7 +18,6 @@ public class User {
         this.fullName = fullName;
         this.password = password;
         this.role = role;
-        this.bookings = new ArrayList<>();
     }
 
     // Getters and Setters
@@ -34,6 +33,10 @@ public class User {
     public String getRole() { return role; }
     public void setRole(String role) { this.role = role; }
 
-    public List<Booking> getBookings() { return bookings; }
+    // Created on first use; most loaded users never have their history attached
+    public List<Booking> getBookings() {
+        if (bookings == null) bookings = new ArrayList<>();
+        return bookings;
+    }
     public void setBookings(List<Booking> bookings) { this.bookings = bookings; }
 }
\ No newline at end of file
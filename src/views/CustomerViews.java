@@ -1,19 +1,25 @@
 package views;
 
 import controllers.BookingController;
+import controllers.RouteController;
 import controllers.ScheduleController;
 import java.awt.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.UUID;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import models.Booking;
+import models.BookingOutcome;
+import models.Journey;
 import models.Schedule;
+import models.SeatHold;
+import models.SeatMap;
 import models.User;
 
 public class CustomerViews extends JPanel {
@@ -27,6 +33,13 @@ public class CustomerViews extends JPanel {
     private JButton searchBtn, historyBtn;
     private static final String SELECT_CITY = "Select City";
 
+    // Idempotency key of the booking the customer is trying to make. A retry of the same schedule and seats
+    // (e.g. after a timeout) reuses it so the server can return the first attempt's hold; a different
+    // selection, or an attempt that got a definite answer, starts a new one.
+    private String bookingKey;
+    private Long bookingKeySchedule;
+    private List<String> bookingKeySeats;
+
     public CustomerViews(Login app, User user) {
         this.loginApp = app;
         this.currentUser = user;
@@ -116,9 +129,38 @@ public class CustomerViews extends JPanel {
         combo.setPreferredSize(new Dimension(999, 40));
         combo.setMaximumSize(new Dimension(999, 40)); // Prevent horizontal shrinking
         combo.setFont(new Font("SansSerif", Font.PLAIN, 16));
+        combo.setKeySelectionManager(new CityKeySelection());
         return combo;
     }
-    //
+
+    // Type-ahead: keys typed in quick succession build a prefix that jumps to the first matching city.
+    // Runs on the EDT, so it only looks at the cities loadCityOptions() already fetched
+    private static class CityKeySelection implements JComboBox.KeySelectionManager {
+        private final StringBuilder typed = new StringBuilder();
+        private long lastKeyAt;
+
+        @Override
+        public int selectionForKey(char key, ComboBoxModel<?> model) {
+            long now = System.currentTimeMillis();
+            if (now - lastKeyAt > 1000) {
+                typed.setLength(0);
+            }
+            lastKeyAt = now;
+            typed.append(key);
+
+            List<String> matches = RouteController.getInstance().findLoadedCities(typed.toString(), 1);
+            if (matches.isEmpty()) {
+                return -1;
+            }
+            for (int i = 0; i < model.getSize(); i++) {
+                if (matches.get(0).equals(model.getElementAt(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
     private JLabel createInputLabel(String text) {
         JLabel l = new JLabel(text);
         l.setFont(new Font("SansSerif", Font.PLAIN, 12));
@@ -143,16 +185,9 @@ public class CustomerViews extends JPanel {
         new SwingWorker<String[], Void>() {
             @Override
             protected String[] doInBackground() {
-                List<Schedule> schedules = ScheduleController.getInstance().getAllSchedules();
-                Set<String> cities = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                for (Schedule schedule : schedules) {
-                    cities.add(schedule.getRoute().getSourceCity());
-                    cities.add(schedule.getRoute().getDestinationCity());
-                }
-
                 ArrayList<String> cityList = new ArrayList<>();
                 cityList.add(SELECT_CITY);
-                cityList.addAll(cities);
+                cityList.addAll(RouteController.getInstance().getCities());
                 return cityList.toArray(new String[0]);
             }
 
@@ -185,21 +220,39 @@ public class CustomerViews extends JPanel {
         resultsListPanel.revalidate();
         resultsListPanel.repaint();
 
+        LocalDate travelDate = ((Date) travelDateSpinner.getValue()).toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate();
+
         searchBtn.setEnabled(false);
         searchBtn.setText("Searching...");
 
         new SwingWorker<List<Schedule>, Void>() {
+            private List<Journey> journeys;
+            private LocalDate lastPlannable;
+
             @Override
             protected List<Schedule> doInBackground() {
-                return ScheduleController.getInstance().searchTrips(from, to);
+                ScheduleController schedules = ScheduleController.getInstance();
+                // Planned in memory over a cached timetable, so this adds no query per search
+                journeys = schedules.planJourneys(from, to, travelDate);
+                lastPlannable = schedules.getLastPlannableDate();
+                return schedules.searchTrips(from, to, travelDate);
             }
 
             @Override
             protected void done() {
                 try {
                     List<Schedule> results = get();
-                    if (results.isEmpty()) {
-                        JLabel noData = new JLabel("No buses found.", SwingConstants.CENTER);
+                    boolean connecting = journeys.stream().anyMatch(j -> j.getTransfers() > 0);
+                    if (travelDate.isAfter(lastPlannable)) {
+                        JLabel beyond = new JLabel("Connections are only planned up to " + lastPlannable + ".",
+                                SwingConstants.CENTER);
+                        beyond.setForeground(Color.GRAY);
+                        beyond.setBorder(new EmptyBorder(5, 0, 5, 0));
+                        resultsListPanel.add(beyond);
+                    }
+                    if (results.isEmpty() && !connecting) {
+                        JLabel noData = new JLabel("No buses found on " + travelDate + ".", SwingConstants.CENTER);
                         noData.setBorder(new EmptyBorder(20, 0, 0, 0));
                         resultsListPanel.add(noData);
                     } else {
@@ -209,6 +262,23 @@ public class CustomerViews extends JPanel {
                             resultsListPanel.add(card);
                             resultsListPanel.add(Box.createVerticalStrut(10)); // Gap between cards
                         }
+                        if (connecting) {
+                            JLabel connections = new JLabel("With connections");
+                            connections.setFont(new Font("SansSerif", Font.BOLD, 13));
+                            connections.setBorder(new EmptyBorder(5, 10, 5, 0));
+                            resultsListPanel.add(connections);
+                        }
+                        // planJourneys lists the earliest arrival first, then the cheapest if different;
+                        // direct journeys are already among the cards above
+                        for (int i = 0; i < journeys.size(); i++) {
+                            Journey j = journeys.get(i);
+                            if (j.getTransfers() == 0) {
+                                continue;
+                            }
+                            String label = journeys.size() == 1 ? "Earliest & cheapest" : i == 0 ? "Earliest" : "Cheapest";
+                            resultsListPanel.add(new JourneyCardPanel(label, j, leg -> initiateBooking(leg)));
+                            resultsListPanel.add(Box.createVerticalStrut(10));
+                        }
                     }
                     resultsListPanel.revalidate();
                     resultsListPanel.repaint();
@@ -226,35 +296,55 @@ public class CustomerViews extends JPanel {
     private void initiateBooking(Schedule schedule) {
         int totalSeats = schedule.getBus().getTotalSeats();
 
-        new SwingWorker<List<String>, Void>() {
+        new SwingWorker<SeatMap, Void>() {
             @Override
-            protected List<String> doInBackground() {
-                return BookingController.getInstance().getTakenSeats(schedule.getId());
+            protected SeatMap doInBackground() {
+                return BookingController.getInstance().getSeatMap(schedule.getId(), totalSeats);
             }
 
             @Override
             protected void done() {
                 try {
-                    List<String> taken = get();
-                    StringBuilder msg = new StringBuilder("Enter Seat (1-" + totalSeats + "):\n");
-                    if (!taken.isEmpty())
-                        msg.append("Taken: ").append(String.join(", ", taken));
+                    SeatMap seats = get();
+                    if (seats.firstFree() < 0) {
+                        JOptionPane.showMessageDialog(CustomerViews.this, "This bus is fully booked.");
+                        return;
+                    }
+                    StringBuilder msg = new StringBuilder("Enter Seat(s) (1-" + totalSeats + "), e.g. 4 or 4,5,6:\n");
+                    msg.append(seats.freeCount()).append(" free");
+                    if (seats.takenCount() > 0)
+                        msg.append(" • Taken: ").append(seats.describeTaken());
 
-                    String input = JOptionPane.showInputDialog(CustomerViews.this, msg.toString());
+                    String input = JOptionPane.showInputDialog(CustomerViews.this, msg.toString(),
+                            String.valueOf(seats.firstFree()));
                     if (input != null && !input.trim().isEmpty()) {
                         // Check number format first
+                        List<String> picked = new ArrayList<>();
                         try {
-                            int seatNum = Integer.parseInt(input.trim());
-                            if (seatNum < 1 || seatNum > totalSeats) {
-                                JOptionPane.showMessageDialog(CustomerViews.this, "Invalid Seat Number!");
-                                return;
+                            for (String part : input.split(",")) {
+                                if (part.trim().isEmpty())
+                                    continue;
+                                int seatNum = Integer.parseInt(part.trim());
+                                if (!seats.isValidSeat(seatNum)) {
+                                    JOptionPane.showMessageDialog(CustomerViews.this, "Invalid Seat Number: " + seatNum);
+                                    return;
+                                }
+                                if (seats.isTaken(seatNum)) {
+                                    JOptionPane.showMessageDialog(CustomerViews.this, "Seat " + seatNum + " is already taken.");
+                                    return;
+                                }
+                                if (picked.contains(String.valueOf(seatNum))) {
+                                    JOptionPane.showMessageDialog(CustomerViews.this, "Seat " + seatNum + " was entered twice.");
+                                    return;
+                                }
+                                picked.add(String.valueOf(seatNum));
                             }
-                            Booking newBooking = new Booking(null, currentUser, schedule, String.valueOf(seatNum),
-                                    schedule.getTicketPrice());
-                            performBooking(newBooking);
                         } catch (NumberFormatException nfe) {
-                            JOptionPane.showMessageDialog(CustomerViews.this, "Please enter a number.");
+                            JOptionPane.showMessageDialog(CustomerViews.this, "Please enter seat numbers separated by commas.");
+                            return;
                         }
+                        if (!picked.isEmpty())
+                            performBooking(schedule, picked, bookingKeyFor(schedule, picked));
                     }
                 } catch (Exception ex) {
                     ex.printStackTrace();
@@ -263,12 +353,67 @@ public class CustomerViews extends JPanel {
         }.execute();
     }
 
-    private void performBooking(Booking newBooking) {
-        BigDecimal price = newBooking.getTotalAmount();
+    private String bookingKeyFor(Schedule schedule, List<String> seatNumbers) {
+        if (bookingKey == null || !schedule.getId().equals(bookingKeySchedule)
+                || !new HashSet<>(seatNumbers).equals(new HashSet<>(bookingKeySeats))) {
+            bookingKey = UUID.randomUUID().toString();
+            bookingKeySchedule = schedule.getId();
+            bookingKeySeats = new ArrayList<>(seatNumbers);
+        }
+        return bookingKey;
+    }
+
+    // Seats are held first (PENDING), then confirmed at checkout; all seats succeed or fail together
+    private void performBooking(Schedule schedule, List<String> seatNumbers, String requestKey) {
+        BigDecimal price = schedule.getTicketPrice().multiply(BigDecimal.valueOf(seatNumbers.size()));
+        new SwingWorker<SeatHold, Void>() {
+            @Override
+            protected SeatHold doInBackground() {
+                return BookingController.getInstance().holdSeats(currentUser, schedule, seatNumbers, requestKey);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    SeatHold hold = get();
+                    if (hold.getOutcome() != BookingOutcome.FAILED && requestKey.equals(bookingKey)) {
+                        bookingKey = null; // Answered; only a failed attempt is retried with the same key
+                    }
+                    switch (hold.getOutcome()) {
+                        case BOOKED:
+                            checkout(hold, price);
+                            break;
+                        case SEAT_TAKEN:
+                            JOptionPane.showMessageDialog(CustomerViews.this, "Booking Failed (Seat Taken).");
+                            break;
+                        case SOLD_OUT:
+                            JOptionPane.showMessageDialog(CustomerViews.this, "Booking Failed (Sold Out).");
+                            performSearch();
+                            break;
+                        default:
+                            JOptionPane.showMessageDialog(CustomerViews.this, "Booking Failed. Please try again.");
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }.execute();
+    }
+
+    private void checkout(SeatHold hold, BigDecimal price) {
+        String msg = "Seat(s) " + String.join(", ", hold.getSeatNumbers()) + " held until "
+                + hold.getExpiresAt().toLocalTime().withNano(0) + ".\nConfirm booking for " + price + "?";
+        boolean confirm = JOptionPane.showConfirmDialog(CustomerViews.this, msg, "Checkout",
+                JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
+
         new SwingWorker<Boolean, Void>() {
             @Override
             protected Boolean doInBackground() {
-                return BookingController.getInstance().createBooking(newBooking);
+                if (!confirm) {
+                    BookingController.getInstance().releaseHold(hold);
+                    return false;
+                }
+                return BookingController.getInstance().confirmHold(hold, currentUser.getId());
             }
 
             @Override
@@ -276,10 +421,10 @@ public class CustomerViews extends JPanel {
                 try {
                     if (get()) {
                         JOptionPane.showMessageDialog(CustomerViews.this, "Booking Confirmed!" + "   Price: " + price);
-                        performSearch(); // Refresh list to update seats
-                    } else {
-                        JOptionPane.showMessageDialog(CustomerViews.this, "Booking Failed (Seat Taken).");
+                    } else if (confirm) {
+                        JOptionPane.showMessageDialog(CustomerViews.this, "Your seat hold expired. Please book again.");
                     }
+                    performSearch(); // Refresh list to update seats
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
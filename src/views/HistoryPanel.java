@@ -3,11 +3,12 @@ package views;
 import controllers.BookingController;
 import java.awt.*;
 import java.text.NumberFormat;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import models.Booking;
+import models.BookingSummary;
 import models.User;
 
 public class HistoryPanel extends JPanel {
@@ -18,6 +19,14 @@ public class HistoryPanel extends JPanel {
     private final DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final NumberFormat currencyFmt = NumberFormat.getCurrencyInstance();
     private static final int CARD_HEIGHT = 110;
+    private static final int PAGE_SIZE = 20;
+
+    // Keyset cursor: date and id of the last booking shown
+    private LocalDateTime lastDate;
+    private Long lastId;
+    private boolean hasMore;
+    private boolean loading;
+    private int generation; // bumped on reload so a page from before a refresh is dropped
 
     public HistoryPanel(User user) {
         this.currentUser = user;
@@ -47,6 +56,13 @@ public class HistoryPanel extends JPanel {
         JScrollPane scroll = new JScrollPane(listPanel);
         scroll.setBorder(BorderFactory.createEmptyBorder());
         scroll.getVerticalScrollBar().setUnitIncrement(16);
+        // Fetch the next page when the user scrolls near the bottom
+        scroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            JScrollBar bar = scroll.getVerticalScrollBar();
+            if (bar.getValue() + bar.getVisibleAmount() >= bar.getMaximum() - CARD_HEIGHT * 2) {
+                loadNextPage();
+            }
+        });
         add(scroll, BorderLayout.CENTER);
         
         JPanel actionBar = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -66,38 +82,76 @@ public class HistoryPanel extends JPanel {
     }
 
     private void loadHistory() {
-        new SwingWorker<List<Booking>, Void>() {
+        generation++;
+        lastDate = null;
+        lastId = null;
+        hasMore = true;
+        loading = false;
+        listPanel.removeAll();
+        listPanel.revalidate();
+        listPanel.repaint();
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || !hasMore) {
+            return;
+        }
+        loading = true;
+        final int requestGeneration = generation;
+        final LocalDateTime beforeDate = lastDate;
+        final Long beforeId = lastId;
+
+        new SwingWorker<List<BookingSummary>, Void>() {
             @Override
-            protected List<Booking> doInBackground() {
-                return BookingController.getInstance().getBookingsForUser(currentUser.getId());
+            protected List<BookingSummary> doInBackground() {
+                return BookingController.getInstance().getBookingSummariesForUser(currentUser.getId(), beforeDate, beforeId, PAGE_SIZE);
             }
 
             @Override
             protected void done() {
+                if (requestGeneration != generation) {
+                    return; // refreshed meanwhile
+                }
+                loading = false;
                 try {
-                    List<Booking> list = get();
-                    renderBookings(list);
-                } catch (Exception e) { e.printStackTrace(); }
+                    List<BookingSummary> page = get();
+                    hasMore = page.size() == PAGE_SIZE;
+                    if (!page.isEmpty()) {
+                        BookingSummary last = page.get(page.size() - 1);
+                        lastDate = last.getBookingDate();
+                        lastId = last.getId();
+                    }
+                    appendBookings(page, beforeId == null);
+                } catch (Exception e) {
+                    hasMore = false;
+                    e.printStackTrace();
+                }
             }
         }.execute();
     }
 
-    private void renderBookings(List<Booking> bookings) {
-        listPanel.removeAll();
-
-        if (bookings == null || bookings.isEmpty()) {
+    private void appendBookings(List<BookingSummary> bookings, boolean firstPage) {
+        if (firstPage && (bookings == null || bookings.isEmpty())) {
             listPanel.add(emptyLabel);
         } else {
-            for (Booking b : bookings) {
+            for (BookingSummary b : bookings) {
                 listPanel.add(createBookingCard(b));
                 listPanel.add(Box.createVerticalStrut(10));
             }
         }
         listPanel.revalidate();
         listPanel.repaint();
+
+        // The page may not fill the viewport, in which case no scroll event will ask for more
+        SwingUtilities.invokeLater(() -> {
+            if (hasMore && listPanel.getHeight() <= listPanel.getVisibleRect().height) {
+                loadNextPage();
+            }
+        });
     }
 
-    private JPanel createBookingCard(Booking booking) {
+    private JPanel createBookingCard(BookingSummary booking) {
         JPanel card = new JPanel(new BorderLayout(8, 4));
         card.setBackground(Color.WHITE);
         card.setBorder(BorderFactory.createCompoundBorder(
@@ -128,7 +182,7 @@ public class HistoryPanel extends JPanel {
         topRow.add(dateLabel, BorderLayout.WEST);
         topRow.add(statusLabel, BorderLayout.EAST);
 
-        JLabel routeLabel = new JLabel(booking.getSchedule().getRoute().getSourceCity() + " → " + booking.getSchedule().getRoute().getDestinationCity());
+        JLabel routeLabel = new JLabel(booking.getSourceCity() + " → " + booking.getDestinationCity());
         routeLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
         routeLabel.setForeground(Color.DARK_GRAY);
 
@@ -153,7 +207,7 @@ public class HistoryPanel extends JPanel {
         return card;
     }
 
-    private void cancelBooking(Booking booking, JButton trigger) {
+    private void cancelBooking(BookingSummary booking, JButton trigger) {
         int confirm = JOptionPane.showConfirmDialog(
                 this,
                 "Cancel this booking?",
@@ -0,0 +1,86 @@
+package views;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import models.Journey;
+import models.Schedule;
+
+// Card for an itinerary with connections: a summary line, then one row per leg with its own Book button
+public class JourneyCardPanel extends JPanel {
+
+    private static final int HEADER_HEIGHT = 50;
+    private static final int LEG_HEIGHT = 46;
+
+    public JourneyCardPanel(String label, Journey journey, Consumer<Schedule> onBookLeg) {
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBackground(Color.WHITE);
+        setBorder(BorderFactory.createCompoundBorder(
+            new EmptyBorder(5, 10, 5, 10),
+            BorderFactory.createLineBorder(new Color(230, 230, 230), 1, true)
+        ));
+
+        // --- Summary ---
+        Duration total = journey.getDuration();
+        JLabel summary = new JLabel(label + " • " + journey.getDepartureTime().toLocalTime() + " → "
+                + journey.getArrivalTime().toLocalTime() + " (" + total.toHours() + "h "
+                + total.toMinutesPart() + "m) • " + journey.getTransfers()
+                + (journey.getTransfers() == 1 ? " change" : " changes") + " • $" + journey.getTotalPrice());
+        summary.setFont(new Font("SansSerif", Font.BOLD, 14));
+        summary.setBorder(new EmptyBorder(10, 10, 5, 10));
+        summary.setAlignmentX(LEFT_ALIGNMENT);
+        add(summary);
+
+        // --- Legs ---
+        List<Schedule> legs = journey.getLegs();
+        for (int i = 0; i < legs.size(); i++) {
+            Schedule leg = legs.get(i);
+            String layover = "";
+            if (i > 0) {
+                Duration wait = Duration.between(legs.get(i - 1).getArrivalTime(), leg.getDepartureTime());
+                layover = " (wait " + wait.toHours() + "h " + wait.toMinutesPart() + "m)";
+            }
+            add(createLegRow(leg, layover, onBookLeg));
+        }
+
+        int height = HEADER_HEIGHT + LEG_HEIGHT * legs.size();
+        setPreferredSize(new Dimension(0, height));
+        setMaximumSize(new Dimension(9999, height));
+    }
+
+    private JPanel createLegRow(Schedule leg, String layover, Consumer<Schedule> onBookLeg) {
+        JPanel row = new JPanel(new BorderLayout());
+        row.setBackground(Color.WHITE);
+        row.setBorder(new EmptyBorder(0, 20, 5, 10));
+        row.setAlignmentX(LEFT_ALIGNMENT);
+
+        JPanel info = new JPanel(new GridLayout(2, 1));
+        info.setBackground(Color.WHITE);
+
+        JLabel routeLabel = new JLabel(leg.getDepartureTime().toLocalTime() + " • " +
+                                       leg.getRoute().getSourceCity() + " > " +
+                                       leg.getRoute().getDestinationCity() + layover);
+        routeLabel.setFont(new Font("SansSerif", Font.PLAIN, 13));
+
+        JLabel detailLabel = new JLabel(leg.getBus().getBusNumber() + " (" + leg.getBus().getType() + ") • $"
+                + leg.getTicketPrice() + " • " + leg.getAvailableSeats() + " seats left");
+        detailLabel.setForeground(Color.GRAY);
+        detailLabel.setFont(new Font("SansSerif", Font.PLAIN, 12));
+
+        info.add(routeLabel);
+        info.add(detailLabel);
+        row.add(info, BorderLayout.CENTER);
+
+        JButton bookBtn = new JButton("Book");
+        bookBtn.setBackground(new Color(50, 150, 250)); // App Blue
+        bookBtn.setForeground(Color.WHITE);
+        bookBtn.setFocusPainted(false);
+        bookBtn.setFont(new Font("SansSerif", Font.BOLD, 12));
+        bookBtn.addActionListener(e -> onBookLeg.accept(leg));
+        row.add(bookBtn, BorderLayout.EAST);
+        return row;
+    }
+}
@@ -1,5 +1,9 @@
 package views;
 
+import controllers.ReportController;
+import controllers.ScheduleController;
+import controllers.TripArchiver;
+import db.DatabaseSchema;
 import javax.swing.SwingUtilities;
 
 /**
@@ -7,6 +11,13 @@ import javax.swing.SwingUtilities;
  */
 public class Main {
     public static void main(String[] args) {
+        DatabaseSchema.ensureInstalled();
+        ScheduleController.getInstance(); // starts building the trip search index when -Dsearch.index=true
+        ReportController.getInstance().startFolding(Long.getLong("report.foldMs", 5_000L));
+        if (Boolean.getBoolean("archive.enabled")) {
+            new TripArchiver(Integer.getInteger("archive.retentionDays", 60))
+                    .start(Long.getLong("archive.intervalHours", 24L));
+        }
         SwingUtilities.invokeLater(() -> new Login().setVisible(true)); 
     }
 }
@@ -10,31 +10,43 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingWorker;
 import javax.swing.table.DefaultTableModel;
 import models.Bus;
+import models.Recurrence;
 import models.Route;
 import models.Schedule;
+import models.ScheduleBatchResult;
+import models.ScheduleConflict;
 
 // Admin-facing panel that lets staff create, edit, and delete bus schedules while keeping UI selections in sync.
 public class AddSchedulePanel extends JPanel {
     private JComboBox<String> busCombo, routeCombo;
-    private JTextField departureDateField, priceField;
-    private JButton loadDataBtn, addBtn, updateBtn, deleteBtn, clearBtn, refreshBtn;
+    private JTextField departureDateField, priceField, repeatUntilField, skipDatesField;
+    private final JCheckBox[] dayBoxes = new JCheckBox[7]; // Monday first
+    private JButton loadDataBtn, addBtn, addRecurringBtn, updateBtn, deleteBtn, clearBtn, refreshBtn;
     private JTable scheduleTable;
     private final DefaultTableModel tableModel;
     
@@ -85,19 +97,47 @@ public class AddSchedulePanel extends JPanel {
         gbc.gridx = 1;
         formPanel.add(priceField, gbc);
 
+        // Recurrence: repeats the departure above on the ticked weekdays until the given date
+        gbc.gridx = 0; gbc.gridy = 5;
+        formPanel.add(new JLabel("Repeat until (yyyy-MM-dd):"), gbc);
+        repeatUntilField = new JTextField();
+        gbc.gridx = 1;
+        formPanel.add(repeatUntilField, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 6;
+        formPanel.add(new JLabel("Repeat on:"), gbc);
+        JPanel dayRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        dayRow.setOpaque(false);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            JCheckBox box = new JCheckBox(day.getDisplayName(TextStyle.SHORT, Locale.getDefault()), true);
+            box.setOpaque(false);
+            dayBoxes[day.getValue() - 1] = box;
+            dayRow.add(box);
+        }
+        gbc.gridx = 1;
+        formPanel.add(dayRow, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 7;
+        formPanel.add(new JLabel("Skip dates (comma separated):"), gbc);
+        skipDatesField = new JTextField();
+        gbc.gridx = 1;
+        formPanel.add(skipDatesField, gbc);
+
         JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
         buttonRow.setOpaque(false);
         addBtn = new JButton("Add Schedule");
+        addRecurringBtn = new JButton("Add Recurring");
         updateBtn = new JButton("Update");
         deleteBtn = new JButton("Delete");
         clearBtn = new JButton("Clear");
         refreshBtn = new JButton("Refresh");
         buttonRow.add(addBtn);
+        buttonRow.add(addRecurringBtn);
         buttonRow.add(updateBtn);
         buttonRow.add(deleteBtn);
         buttonRow.add(clearBtn);
         buttonRow.add(refreshBtn);
-        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 8; gbc.gridwidth = 2;
         formPanel.add(buttonRow, gbc);
 
         add(formPanel, BorderLayout.NORTH);
@@ -119,6 +159,7 @@ public class AddSchedulePanel extends JPanel {
 
         loadDataBtn.addActionListener(e -> loadLists());
         addBtn.addActionListener(e -> createSchedule());
+        addRecurringBtn.addActionListener(e -> createRecurringSchedules());
         updateBtn.addActionListener(e -> updateSchedule());
         deleteBtn.addActionListener(e -> deleteSchedule());
         clearBtn.addActionListener(e -> clearSelection());
@@ -173,17 +214,104 @@ public class AddSchedulePanel extends JPanel {
             Schedule schedule = new Schedule(null, selectedBus, selectedRoute, departure, arrival, price);
             schedule.setAvailableSeats(selectedBus.getTotalSeats());
 
-            new SwingWorker<Void, Void>() {
+            new SwingWorker<List<ScheduleConflict>, Void>() {
+                private boolean saved;
+
+                @Override
+                protected List<ScheduleConflict> doInBackground() {
+                    ScheduleController controller = ScheduleController.getInstance();
+                    List<ScheduleConflict> conflicts = controller.findConflicts(List.of(schedule));
+                    if (conflicts != null && conflicts.isEmpty()) {
+                        saved = controller.addSchedule(schedule);
+                    }
+                    return conflicts;
+                }
+                @Override
+                protected void done() {
+                    try {
+                        List<ScheduleConflict> conflicts = get();
+                        if (conflicts != null && !conflicts.isEmpty()) {
+                            showConflicts("Schedule not created.", conflicts);
+                        } else if (saved) {
+                            JOptionPane.showMessageDialog(AddSchedulePanel.this, "Schedule Created!");
+                            clearSelection();
+                            loadSchedules();
+                        } else {
+                            JOptionPane.showMessageDialog(AddSchedulePanel.this, "Create failed. Please try again.");
+                        }
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(AddSchedulePanel.this, "Failed to create schedule: " + ex.getMessage());
+                    }
+                }
+            }.execute();
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, "Error: Check date/price format. " + ex.getMessage());
+        }
+    }
+
+    private void createRecurringSchedules() {
+        try {
+            if (busCombo.getSelectedIndex() < 0 || routeCombo.getSelectedIndex() < 0) {
+                JOptionPane.showMessageDialog(this, "Please select Bus and Route.");
+                return;
+            }
+
+            Bus selectedBus = buses.get(busCombo.getSelectedIndex());
+            Route selectedRoute = routes.get(routeCombo.getSelectedIndex());
+            LocalDateTime departure = LocalDateTime.parse(departureDateField.getText(),
+                    DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+            LocalDateTime arrival = departure.plusHours(4); // Default 4-hour journey
+            BigDecimal price = new BigDecimal(priceField.getText());
+            LocalDate until = LocalDate.parse(repeatUntilField.getText().trim());
+
+            Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (dayBoxes[day.getValue() - 1].isSelected()) {
+                    days.add(day);
+                }
+            }
+            if (days.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "Tick at least one day to repeat on.");
+                return;
+            }
+            Recurrence recurrence = new Recurrence(departure.toLocalDate(), until, days);
+            for (String skip : skipDatesField.getText().split(",")) {
+                if (!skip.isBlank()) {
+                    recurrence.exclude(LocalDate.parse(skip.trim()));
+                }
+            }
+
+            Schedule template = new Schedule(null, selectedBus, selectedRoute, departure, arrival, price);
+            addRecurringBtn.setEnabled(false);
+
+            new SwingWorker<ScheduleBatchResult, Void>() {
                 @Override
-                protected Void doInBackground() {
-                    ScheduleController.getInstance().addSchedule(schedule);
-                    return null;
+                protected ScheduleBatchResult doInBackground() {
+                    return ScheduleController.getInstance().addRecurringSchedule(template, recurrence);
                 }
+
                 @Override
                 protected void done() {
-                    JOptionPane.showMessageDialog(AddSchedulePanel.this, "Schedule Created!");
-                    clearSelection();
-                    loadSchedules();
+                    addRecurringBtn.setEnabled(true);
+                    try {
+                        ScheduleBatchResult result = get();
+                        if (result == null) {
+                            JOptionPane.showMessageDialog(AddSchedulePanel.this,
+                                    "Failed to create schedules. Nothing was saved.");
+                            return;
+                        }
+                        String summary = "Created " + result.getCreatedCount() + " schedules, skipped "
+                                + result.getSkippedCount() + " that clash with other trips.";
+                        if (result.getConflicts().isEmpty()) {
+                            JOptionPane.showMessageDialog(AddSchedulePanel.this, summary);
+                        } else {
+                            showConflicts(summary, result.getConflicts());
+                        }
+                        clearSelection();
+                        loadSchedules();
+                    } catch (Exception ex) {
+                        JOptionPane.showMessageDialog(AddSchedulePanel.this, "Failed to create schedules: " + ex.getMessage());
+                    }
                 }
             }.execute();
         } catch (Exception ex) {
@@ -215,15 +343,21 @@ public class AddSchedulePanel extends JPanel {
             updated.setAvailableSeats(selectedSchedule.getAvailableSeats());
 
             new SwingWorker<Boolean, Void>() {
+                private List<ScheduleConflict> conflicts;
+
                 @Override
                 protected Boolean doInBackground() {
-                    return ScheduleController.getInstance().updateSchedule(updated);
+                    ScheduleController controller = ScheduleController.getInstance();
+                    conflicts = controller.findConflicts(List.of(updated));
+                    return conflicts != null && conflicts.isEmpty() && controller.updateSchedule(updated);
                 }
 
                 @Override
                 protected void done() {
                     try {
-                        if (get()) {
+                        if (conflicts != null && !conflicts.isEmpty()) {
+                            showConflicts("Schedule not updated.", conflicts);
+                        } else if (get()) {
                             JOptionPane.showMessageDialog(AddSchedulePanel.this, "Schedule updated.");
                             clearSelection();
                             loadSchedules();
@@ -276,11 +410,27 @@ public class AddSchedulePanel extends JPanel {
         }.execute();
     }
 
+    // Lists every conflict at once rather than stopping at the first
+    private void showConflicts(String message, List<ScheduleConflict> conflicts) {
+        StringBuilder text = new StringBuilder();
+        for (ScheduleConflict c : conflicts) {
+            text.append(c).append('\n');
+        }
+        JTextArea area = new JTextArea(text.toString(), Math.min(conflicts.size(), 15), 70);
+        area.setEditable(false);
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(new JLabel(message + " " + conflicts.size() + " conflict(s):"), BorderLayout.NORTH);
+        content.add(new JScrollPane(area), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, content, "Bus Conflicts", JOptionPane.WARNING_MESSAGE);
+    }
+
     private void clearSelection() {
         selectedSchedule = null;
         departureDateField.setText(LocalDateTime.now().plusDays(1)
                 .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
         priceField.setText("");
+        repeatUntilField.setText("");
+        skipDatesField.setText("");
         busCombo.setSelectedIndex(-1);
         routeCombo.setSelectedIndex(-1);
         scheduleTable.clearSelection();
@@ -1,14 +1,24 @@
 package views.admin;
 
+import controllers.BookingController;
+import controllers.BookingExport;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.FlowLayout;
 import java.awt.Font;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingWorker;
 import views.Login;
 
 public class AdminViews extends JPanel {
@@ -39,7 +49,12 @@ public class AdminViews extends JPanel {
         logoutBtn.setFocusPainted(false);
         logoutBtn.setBackground(Color.WHITE);
         logoutBtn.addActionListener(e -> loginApp.logout());
+        JButton exportBtn = new JButton("Export Bookings");
+        exportBtn.setFocusPainted(false);
+        exportBtn.setBackground(Color.WHITE);
+        exportBtn.addActionListener(e -> exportBookings(exportBtn));
         headerRight.add(welcome);
+        headerRight.add(exportBtn);
         headerRight.add(logoutBtn);
         header.add(headerRight, BorderLayout.EAST);
 
@@ -51,6 +66,8 @@ public class AdminViews extends JPanel {
         tabs.addTab("Manage Buses", new ManageBusesPanel());
         tabs.addTab("Add Route", new AddRoutePanel());
         tabs.addTab("Add Schedule", new AddSchedulePanel());
+        tabs.addTab("Bookings", new BookingsPanel());
+        tabs.addTab("Reports", new ReportsPanel());
 
         JPanel contentPanel = new JPanel(new BorderLayout());
         contentPanel.setBackground(Color.WHITE);
@@ -62,4 +79,44 @@ public class AdminViews extends JPanel {
 
         add(contentPanel, BorderLayout.CENTER);
     }
+
+    // Format follows the file name: .csv or .jsonl, optionally with .gz
+    private void exportBookings(JButton trigger) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("bookings.csv.gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        String name = file.getName().toLowerCase();
+        boolean gzip = name.endsWith(".gz");
+        BookingExport.Format format = name.replaceFirst("\\.gz$", "").endsWith(".jsonl")
+                ? BookingExport.Format.JSONL : BookingExport.Format.CSV;
+
+        trigger.setEnabled(false);
+        new SwingWorker<BookingExport.Result, Void>() {
+            @Override
+            protected BookingExport.Result doInBackground() throws IOException {
+                try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                    return BookingController.getInstance().exportBookings(out, format, gzip);
+                }
+            }
+
+            @Override
+            protected void done() {
+                trigger.setEnabled(true);
+                try {
+                    BookingExport.Result result = get();
+                    if (result != null) {
+                        JOptionPane.showMessageDialog(AdminViews.this, "Exported " + result + "\nto " + file);
+                    } else {
+                        JOptionPane.showMessageDialog(AdminViews.this, "Export failed.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(AdminViews.this, "Export failed.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
 }
@@ -0,0 +1,171 @@
+package views.admin;
+
+import controllers.BookingController;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.text.NumberFormat;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+import models.BookingSummary;
+
+// All bookings, newest first, one page at a time
+public class BookingsPanel extends JPanel {
+    private static final int PAGE_SIZE = 100;
+
+    private final DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private final NumberFormat currencyFmt = NumberFormat.getCurrencyInstance();
+    private DefaultTableModel tableModel;
+    private JTable bookingTable;
+    private JButton moreBtn, cancelBtn, refreshBtn;
+    private JLabel countLabel;
+    private List<BookingSummary> bookings = new ArrayList<>();
+
+    // Keyset cursor: date and id of the last booking loaded
+    private LocalDateTime lastDate;
+    private Long lastId;
+
+    public BookingsPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBackground(Color.WHITE);
+
+        tableModel = new DefaultTableModel(
+                new Object[]{"ID", "Booked", "Customer", "Route", "Departure", "Seat", "Amount", "Status"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        bookingTable = new JTable(tableModel);
+        JScrollPane scrollPane = new JScrollPane(bookingTable);
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
+        add(scrollPane, BorderLayout.CENTER);
+
+        JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        buttonRow.setOpaque(false);
+        refreshBtn = new JButton("Refresh");
+        moreBtn = new JButton("Load More");
+        cancelBtn = new JButton("Cancel Selected");
+        countLabel = new JLabel();
+        buttonRow.add(refreshBtn);
+        buttonRow.add(moreBtn);
+        buttonRow.add(cancelBtn);
+        buttonRow.add(countLabel);
+        add(buttonRow, BorderLayout.SOUTH);
+
+        refreshBtn.addActionListener(e -> reload());
+        moreBtn.addActionListener(e -> loadNextPage());
+        cancelBtn.addActionListener(e -> cancelSelected());
+
+        reload();
+    }
+
+    private void reload() {
+        bookings.clear();
+        tableModel.setRowCount(0);
+        lastDate = null;
+        lastId = null;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        toggleActions(false);
+        final LocalDateTime beforeDate = lastDate;
+        final Long beforeId = lastId;
+        new SwingWorker<List<BookingSummary>, Void>() {
+            @Override
+            protected List<BookingSummary> doInBackground() {
+                return BookingController.getInstance().getBookingSummaries(beforeDate, beforeId, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                toggleActions(true);
+                try {
+                    List<BookingSummary> page = get();
+                    for (BookingSummary b : page) {
+                        bookings.add(b);
+                        tableModel.addRow(new Object[]{
+                                b.getId(),
+                                dateFmt.format(b.getBookingDate()),
+                                b.getCustomerName(),
+                                b.getSourceCity() + " → " + b.getDestinationCity(),
+                                dateFmt.format(b.getDepartureTime()),
+                                b.getSeatNumber(),
+                                currencyFmt.format(b.getTotalAmount()),
+                                b.getStatus()
+                        });
+                    }
+                    if (!page.isEmpty()) {
+                        BookingSummary last = page.get(page.size() - 1);
+                        lastDate = last.getBookingDate();
+                        lastId = last.getId();
+                    }
+                    moreBtn.setEnabled(page.size() == PAGE_SIZE);
+                    countLabel.setText(bookings.size() + " loaded");
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(BookingsPanel.this, "Error loading bookings: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void cancelSelected() {
+        int[] rows = bookingTable.getSelectedRows();
+        if (rows.length == 0) {
+            JOptionPane.showMessageDialog(this, "Select one or more bookings to cancel.");
+            return;
+        }
+        List<Long> ids = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            ids.add(bookings.get(bookingTable.convertRowIndexToModel(row)).getId());
+        }
+        int confirm = JOptionPane.showConfirmDialog(this, "Cancel " + ids.size() + " booking(s)?", "Confirm",
+                JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        toggleActions(false);
+        new SwingWorker<Map<Long, Integer>, Void>() {
+            @Override
+            protected Map<Long, Integer> doInBackground() {
+                return BookingController.getInstance().cancelBookings(ids);
+            }
+
+            @Override
+            protected void done() {
+                toggleActions(true);
+                try {
+                    Map<Long, Integer> perSchedule = get();
+                    if (perSchedule == null) {
+                        JOptionPane.showMessageDialog(BookingsPanel.this, "Unable to cancel. Check logs for details.");
+                        return;
+                    }
+                    int cancelled = perSchedule.values().stream().mapToInt(Integer::intValue).sum();
+                    JOptionPane.showMessageDialog(BookingsPanel.this,
+                            cancelled + " booking(s) cancelled across " + perSchedule.size() + " schedule(s).");
+                    reload();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(BookingsPanel.this, "Error cancelling bookings: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void toggleActions(boolean enabled) {
+        refreshBtn.setEnabled(enabled);
+        moreBtn.setEnabled(enabled);
+        cancelBtn.setEnabled(enabled);
+    }
+}
@@ -0,0 +1,161 @@
+package views.admin;
+
+import controllers.ReportController;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+import models.RouteDayStats;
+
+// Load factor and revenue per route per departure day, read from the rollup
+public class ReportsPanel extends JPanel {
+
+    private final NumberFormat currencyFmt = NumberFormat.getCurrencyInstance();
+    private final NumberFormat percentFmt = NumberFormat.getPercentInstance();
+    private DefaultTableModel tableModel;
+    private JTextField fromField, toField;
+    private JButton refreshBtn, rebuildBtn;
+    private JLabel totalsLabel;
+
+    public ReportsPanel() {
+        setLayout(new BorderLayout(10, 10));
+        setBackground(Color.WHITE);
+
+        JPanel filterRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        filterRow.setOpaque(false);
+        fromField = new JTextField(LocalDate.now().minusDays(7).toString(), 10);
+        toField = new JTextField(LocalDate.now().plusDays(7).toString(), 10);
+        refreshBtn = new JButton("Show");
+        filterRow.add(new JLabel("From (yyyy-MM-dd):"));
+        filterRow.add(fromField);
+        filterRow.add(new JLabel("To:"));
+        filterRow.add(toField);
+        filterRow.add(refreshBtn);
+        add(filterRow, BorderLayout.NORTH);
+
+        tableModel = new DefaultTableModel(
+                new Object[]{"Day", "Route", "Seats Offered", "Seats Sold", "Load Factor", "Revenue", "Cancellations"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) { return false; }
+        };
+        JScrollPane scrollPane = new JScrollPane(new JTable(tableModel));
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(230, 230, 230)));
+        add(scrollPane, BorderLayout.CENTER);
+
+        JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 0));
+        buttonRow.setOpaque(false);
+        rebuildBtn = new JButton("Rebuild Rollups");
+        totalsLabel = new JLabel();
+        buttonRow.add(rebuildBtn);
+        buttonRow.add(totalsLabel);
+        add(buttonRow, BorderLayout.SOUTH);
+
+        refreshBtn.addActionListener(e -> reload());
+        rebuildBtn.addActionListener(e -> rebuild());
+
+        reload();
+    }
+
+    private void reload() {
+        LocalDate from, to;
+        try {
+            from = LocalDate.parse(fromField.getText().trim());
+            to = LocalDate.parse(toField.getText().trim());
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Invalid date. Use yyyy-MM-dd.");
+            return;
+        }
+
+        toggleActions(false);
+        new SwingWorker<List<RouteDayStats>, Void>() {
+            @Override
+            protected List<RouteDayStats> doInBackground() {
+                return ReportController.getInstance().getDailyStats(from, to);
+            }
+
+            @Override
+            protected void done() {
+                toggleActions(true);
+                try {
+                    List<RouteDayStats> rows = get();
+                    tableModel.setRowCount(0);
+                    int offered = 0;
+                    int sold = 0;
+                    BigDecimal revenue = BigDecimal.ZERO;
+                    for (RouteDayStats r : rows) {
+                        tableModel.addRow(new Object[]{
+                                r.getDay(),
+                                r.getSourceCity() != null ? r.getSourceCity() + " → " + r.getDestinationCity()
+                                        : "Route " + r.getRouteId(),
+                                r.getSeatsOffered(),
+                                r.getSeatsSold(),
+                                percentFmt.format(r.getLoadFactor()),
+                                currencyFmt.format(r.getRevenue()),
+                                r.getCancellations()
+                        });
+                        offered += r.getSeatsOffered();
+                        sold += r.getSeatsSold();
+                        revenue = revenue.add(r.getRevenue());
+                    }
+                    totalsLabel.setText(String.format("Total: %d of %d seats sold (%s), %s",
+                            sold, offered, percentFmt.format(offered == 0 ? 0 : (double) sold / offered),
+                            currencyFmt.format(revenue)));
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Error loading report: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void rebuild() {
+        int confirm = JOptionPane.showConfirmDialog(this,
+                "Recompute all rollups from the booking history? Bookings wait until it finishes.", "Confirm",
+                JOptionPane.YES_NO_OPTION);
+        if (confirm != JOptionPane.YES_OPTION) {
+            return;
+        }
+
+        toggleActions(false);
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return ReportController.getInstance().rebuildRollups();
+            }
+
+            @Override
+            protected void done() {
+                toggleActions(true);
+                try {
+                    int rows = get();
+                    if (rows < 0) {
+                        JOptionPane.showMessageDialog(ReportsPanel.this, "Rebuild failed. Check logs for details.");
+                        return;
+                    }
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Rebuilt " + rows + " route/day row(s).");
+                    reload();
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Error rebuilding rollups: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private void toggleActions(boolean enabled) {
+        refreshBtn.setEnabled(enabled);
+        rebuildBtn.setEnabled(enabled);
+    }
+}